@@ -3,6 +3,8 @@ package pers.cc.util.auto_producer;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
+import java.util.List;
+
 /**
  * @author Chen768959
  * @date 2024/1/15
@@ -12,6 +14,46 @@ public class ArgsConfig {
     @JsonProperty("concurrent_num")
     private int concurrentNum;
 
+    // 数据生成线程数，不填时同concurrent_num
+    @JsonProperty("generator_num")
+    private int generatorNum;
+
+    // 已生成、等待发送的batch队列长度，不填时同concurrent_num
+    @JsonProperty("queue_size")
+    private int queueSize;
+
+    // 目标写入速度（行/秒），大于0时按该速率以open-loop方式发送，不填时各线程尽快发送
+    @JsonProperty("target_rows_per_second")
+    private double targetRowsPerSecond;
+
+    // 目标写入速度（批/秒），与target_rows_per_second二选一
+    @JsonProperty("target_batches_per_second")
+    private double targetBatchesPerSecond;
+
+    // 每个发送线程同时在途的请求数，大于1时异步发送（仅http_stream），不填时为1
+    @JsonProperty("in_flight_per_worker")
+    private int inFlightPerWorker;
+
+    // 所有在途请求的请求体字节数（压缩前）上限，单位MB，不填时不限制
+    @JsonProperty("max_in_flight_mb")
+    private int maxInFlightMb;
+
+    // 预生成数据缓存文件路径，配置后发送前先生成（或复用）缓存，发送时重放缓存中的数据（仅http_stream）
+    @JsonProperty("dataset_cache_path")
+    private String datasetCachePath;
+
+    // 预生成数据缓存的batch数，不填时为100
+    @JsonProperty("dataset_cache_batches")
+    private int datasetCacheBatches;
+
+    // 实时报告间隔秒数，大于0时运行中每隔该时间输出一次区间速度及延迟分位数
+    @JsonProperty("report_interval_seconds")
+    private int reportIntervalSeconds;
+
+    // 负载阶段，按顺序执行，配置后按时长结束运行，produce_num可不填（不填时不限行数）
+    @JsonProperty("load_profile")
+    private List<LoadStageConfig> loadProfile;
+
     @JsonProperty("send_type")
     private String sendType;
 
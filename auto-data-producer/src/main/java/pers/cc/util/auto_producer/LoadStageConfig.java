@@ -0,0 +1,35 @@
+package pers.cc.util.auto_producer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * 负载阶段配置，load_profile中按顺序执行各阶段，每个阶段单独输出报告
+ * @date 2026/10/19
+ */
+@Data
+public class LoadStageConfig {
+    // 阶段名称，仅用于报告，不填时为阶段序号
+    @JsonProperty("name")
+    private String name;
+
+    // 阶段持续秒数
+    @JsonProperty("duration_seconds")
+    private long durationSeconds;
+
+    // 阶段内发送线程数，不填时同concurrent_num
+    @JsonProperty("concurrent_num")
+    private int concurrentNum;
+
+    // 阶段内目标写入速度（行/秒），不填时不限速
+    @JsonProperty("target_rows_per_second")
+    private double targetRowsPerSecond;
+
+    // 阶段内目标写入速度（批/秒），与target_rows_per_second二选一
+    @JsonProperty("target_batches_per_second")
+    private double targetBatchesPerSecond;
+
+    // 是否在阶段内从上一阶段的线程数及速度线性增长到本阶段的值，第一个阶段从1个线程、速度0开始
+    @JsonProperty("ramp")
+    private boolean ramp;
+}
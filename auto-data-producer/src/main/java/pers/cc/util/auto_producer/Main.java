@@ -1,13 +1,25 @@
 package pers.cc.util.auto_producer;
 
+import pers.cc.util.auto_producer.cache.DatasetCache;
 import pers.cc.util.auto_producer.context.Context;
 import pers.cc.util.auto_producer.producer.DataProducer;
 import pers.cc.util.auto_producer.producer.DataProducerImpl;
+import pers.cc.util.auto_producer.producer.vector.ColumnBatch;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+import pers.cc.util.auto_producer.report.LiveReporter;
+import pers.cc.util.auto_producer.report.RunMetrics;
+import pers.cc.util.auto_producer.schedule.InFlightLimiter;
+import pers.cc.util.auto_producer.schedule.LoadProfile;
+import pers.cc.util.auto_producer.schedule.RowBudget;
+import pers.cc.util.auto_producer.schedule.OpenLoopSchedule;
+import pers.cc.util.auto_producer.writer.ClickhouseHttpStreamRecordWriter;
 import pers.cc.util.auto_producer.writer.DorisHttpStreamRecordWriter;
+import pers.cc.util.auto_producer.writer.EncodedBatch;
+import pers.cc.util.auto_producer.writer.FlushStats;
 import pers.cc.util.auto_producer.writer.JdbcBatchRecordWriter;
 import pers.cc.util.auto_producer.writer.RecordWriter;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.Data;
+import org.HdrHistogram.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,8 +28,14 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -27,11 +45,34 @@ import java.util.stream.Collectors;
 public class Main {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
     private static Context context = Context.getInstance();
+    // 生成结束标记，每个发送线程取到后退出
+    private static final ColumnBatch END_BATCH = new ColumnBatch(new ColumnVector[0]);
+    // 第一个生成线程的异常，不为null时其余生成线程及发送线程停止，运行结果按失败报告
+    private static final AtomicReference<Throwable> generatorError = new AtomicReference<>();
 
     /**
      * args:
      * {
-     *     "concurrent_num":"",     // 数值，并发数
+     *     "concurrent_num":"",     // 数值，并发数（发送线程数）
+     *     "generator_num":"",      // 数值，可选，数据生成线程数，默认同concurrent_num
+     *     "queue_size":"",         // 数值，可选，已生成待发送的batch队列长度，默认同concurrent_num
+     *     "target_rows_per_second":"",     // 数值，可选，目标写入速度（行/秒），按固定速率发送（open-loop），延迟从计划开始时间算起
+     *     "target_batches_per_second":"",  // 数值，可选，目标写入速度（批/秒），与target_rows_per_second二选一
+     *     "in_flight_per_worker":"",       // 数值，可选，每个发送线程同时在途的请求数，大于1时异步发送（仅http_stream），默认1
+     *     "max_in_flight_mb":"",           // 数值，可选，所有在途请求的请求体大小（压缩前）上限，单位MB，默认不限制；请求大小按已成功请求的每行字节数预估，尚无成功请求时每个请求按上限 / (concurrent_num * in_flight_per_worker)预估
+     *     "dataset_cache_path":"",         // 字符串，可选，预生成数据缓存文件路径，配置后发送前先生成（配置一致时复用已有文件），发送时重放缓存，生成耗时不计入测量（仅http_stream）
+     *     "dataset_cache_batches":"",      // 数值，可选，预生成数据缓存的batch数，默认100
+     *     "report_interval_seconds":"",    // 数值，可选，每隔多少秒输出一次区间速度及延迟分位数，不填时不输出
+     *     "load_profile":[         // 可选，负载阶段，按顺序执行，全部结束（或已生成produce_num行）时运行结束，各阶段单独输出报告
+     *         {                    // 如：固定时长为一个阶段；阶梯加压为多个线程数/速度递增的阶段；线性加压为ramp阶段；长时间稳定运行为一个长时长阶段
+     *             "name":"",                       // 字符串，可选，阶段名称
+     *             "duration_seconds":"",           // 数值，阶段持续秒数
+     *             "concurrent_num":"",             // 数值，可选，阶段内发送线程数，默认同concurrent_num
+     *             "target_rows_per_second":"",     // 数值，可选，阶段内目标写入速度（行/秒），不填时不限速
+     *             "target_batches_per_second":"",  // 数值，可选，阶段内目标写入速度（批/秒），与target_rows_per_second二选一
+     *             "ramp":""                        // boolean，可选，是否从上一阶段的线程数及速度线性增长到本阶段的值
+     *         }
+     *     ],
      *     "send_type":"",          // 字符串，以什么方式发送压测数据，可选项:"jdbc","http_stream"
      *     "dataSource_config":{
      *         "engine_type":"",    // 字符串，"doris","clickhouse"
@@ -48,8 +89,9 @@ public class Main {
      *     "produceData_config":{
      *         "db_name":"",        // 字符串，写入库名
      *         "table_name":"",     // 字符串，写入表名
-     *         "produce_num":"",    // 数值，最多产生多少数据
+     *         "produce_num":"",    // 数值，最多产生多少数据，配置load_profile时可不填（不限行数）
      *         "batch_size":"",     // 数值，batch_size
+     *         "compression":"",    // 字符串，可选，http_stream方式下请求体压缩方式，"none","gzip","lz4","zstd"（doris不支持zstd）
      *         "col_rules":[
      *             {
      *                 "col_name":"",            // 字符串，列名
@@ -59,28 +101,72 @@ public class Main {
      *                 "random_range":"",        // 数值，在多少范围内随机，如2，则最多生成2种随机值(自增条件下无法设置)
      *                 "auto_inc":"",            // boolean，是否自增（DateTime无法自增）
      *                 "string_pre_regular":"",  // 字符串，字符串类型数据增加固定前缀字符串
-     *                 "data_time_latest":""     // boolean，DateTime类型数据是否使用最新时间
+     *                 "data_time_latest":"",    // boolean，DateTime类型数据是否使用最新时间
+     *                 "distribution":"",        // 字符串，可选，随机值分布，"uniform"（默认）,"zipf","normal","hot_set"
+     *                 "zipf_skew":"",           // 数值，可选，zipf偏斜参数，默认1
+     *                 "normal_stddev_ratio":"", // 数值，可选，normal标准差占random_range的比例，默认0.15
+     *                 "hot_set_percent":"",     // 数值，可选，hot_set热点值占random_range的百分比，默认1
+     *                 "hot_traffic_percent":""  // 数值，可选，hot_set取热点值的行数百分比，默认90
      *             }
      *         ]
      *     }
      * }
      */
-    public static void main(String[] args) throws JsonProcessingException, SQLException, ClassNotFoundException, InterruptedException {
+    public static void main(String[] args) throws IOException, SQLException, ClassNotFoundException, InterruptedException {
         context.init(args);
 
-        // 当前写入总数
-        AtomicInteger curInsertSum = new AtomicInteger(0);
+        // 行数预算，各线程从中领取互不重叠的行号区间
+        RowBudget rowBudget = new RowBudget(context.getProduceDataRule().getProduceNum());
+
+        // 生成与发送流水线：生成线程将batch放入readyQueue，发送线程取出写入，写完后归还freeQueue复用，
+        // 使用预生成数据缓存时不启动生成线程，发送线程直接领取行数并重放缓存
+        BlockingQueue<ColumnBatch> readyQueue = new ArrayBlockingQueue<>(context.getQueueSize());
+        BlockingQueue<ColumnBatch> freeQueue = null;
+        DatasetCache datasetCache = null;
+        if (context.getDatasetCachePath() != null){
+            datasetCache = openDatasetCache();
+        }else {
+            freeQueue = createBatchPool();
+            generatorExec(rowBudget, readyQueue, freeQueue);
+        }
 
         // 并发写入
         ExecRes[] execResArr = new ExecRes[context.getConcurrentNum()];
         CountDownLatch latch = new CountDownLatch(context.getConcurrentNum());
-        executorExec(execResArr, curInsertSum, latch);
+        LiveReporter liveReporter = null;
+        if (context.getReportIntervalSeconds() > 0){
+            liveReporter = new LiveReporter(context.getRunMetrics());
+            liveReporter.start(context.getReportIntervalSeconds());
+        }
+        if (context.getLoadProfile() != null){
+            context.getLoadProfile().start();
+        }
+        executorExec(execResArr, readyQueue, freeQueue, datasetCache, rowBudget, latch);
 
         // 等待写入结束，输出报告
         latch.await();
+        // 生成线程失败时，各发送线程的结果均按失败报告
+        Throwable generateError = generatorError.get();
+        if (generateError != null){
+            for (ExecRes execRes : execResArr) {
+                if (execRes.isSuccess()){
+                    execRes.setSuccess(false);
+                    execRes.setErrMsg("生成线程报错，提前停止：" + generateError);
+                }
+            }
+        }
+        if (liveReporter != null){
+            liveReporter.stop();
+        }
         for (ExecRes execRes : execResArr) {
             System.out.println(execRes.toReport());
         }
+        if (context.getLoadProfile() != null){
+            context.getLoadProfile().close();
+            for (String stageReport : context.getLoadProfile().getStageReportList()) {
+                System.out.println(stageReport);
+            }
+        }
         System.out.println(getFinalRes(execResArr));
 
         context.finish();
@@ -91,11 +177,17 @@ public class Main {
 
         long finalStartTime = execResArr[0].getStartTimestamp();
         long finalEndTime = 0;
-        int finalInsertSum = 0;
+        long finalInsertSum = 0;
         long finalFlushConsumeTime = 0;
+        ExecRes sumRes = new ExecRes();
         for (ExecRes execRes : execResArr) {
             finalInsertSum+=execRes.getInsertSum();
             finalFlushConsumeTime += execRes.getFlushConsumeTime();
+            sumRes.rawBytes += execRes.getRawBytes();
+            sumRes.sentBytes += execRes.getSentBytes();
+            sumRes.compressCpuNanos += execRes.getCompressCpuNanos();
+            sumRes.insertBatches += execRes.getInsertBatches();
+            sumRes.latencyHistogram.add(execRes.getLatencyHistogram());
             if (execRes.getStartTimestamp() < finalStartTime){
                 finalStartTime = execRes.getStartTimestamp();
             }
@@ -103,108 +195,278 @@ public class Main {
                 finalEndTime = execRes.getEndTimestamp();
             }
         }
-        long avgFlushConsumeTime = (finalFlushConsumeTime / 1000) / execResArr.length;
-        long finalAvgSpeed = avgFlushConsumeTime == 0 ? finalInsertSum : finalInsertSum / avgFlushConsumeTime;
+        // 各线程平均写入耗时，及按该耗时计算的速度
+        long avgFlushConsumeTime = finalFlushConsumeTime / execResArr.length;
+        long totalTime = finalEndTime - finalStartTime;
 
+        Throwable generateError = generatorError.get();
         return "Final: " +
+                (generateError != null ? "执行失败，生成线程报错：" + generateError + "，" : "") +
                 "成功写入条数("+finalInsertSum+")，" +
-                "各线程平均耗时("+avgFlushConsumeTime+")秒，" +
-                "平均写入速度：("+finalAvgSpeed+")行/秒，" +
+                "各线程平均写入耗时("+String.format("%.3f", avgFlushConsumeTime / 1000d)+")秒，" +
+                "平均写入速度：("+RunMetrics.perSecond(finalInsertSum, avgFlushConsumeTime)+")行/秒，" +
+                "总耗时("+String.format("%.3f", totalTime / 1000d)+")秒，" +
+                "整体吞吐：("+RunMetrics.perSecond(finalInsertSum, totalTime)+")行/秒，" +
+                (sumRes.rawBytes > 0 ? "("+RunMetrics.mbPerSecond(sumRes.rawBytes, totalTime)+")MB/秒（压缩前），" : "") +
+                (context.getOpenLoopSchedule() != null ? "目标速度("+String.format("%.2f", context.getOpenLoopSchedule().getBatchesPerSecond())+")批/秒，" : "") +
+                sumRes.latencyReport() +
+                sumRes.bytesReport() +
                 "启动时间("+sdf.format(finalStartTime)+")，" +
                 "结束时间("+sdf.format(finalEndTime)+");";
 
     }
 
-    private static void executorExec(ExecRes[] execResArr, AtomicInteger curInsertSum, CountDownLatch latch) {
+    /**
+     * 打开预生成数据缓存，描述串包含影响编码结果的所有配置，一致时复用已有缓存文件
+     */
+    private static DatasetCache openDatasetCache() throws IOException, SQLException {
+        ProduceDataConfig produceDataRule = context.getProduceDataRule();
+        int tailRows = produceDataRule.getProduceNum() > 0 ? (int) (produceDataRule.getProduceNum() % produceDataRule.getBatchSize()) : 0;
+        String descriptor = context.getEngineType() + "|" + context.getCompression() + "|" + produceDataRule.getBatchSize() + "|"
+                + context.getDatasetCacheBatches() + "|" + tailRows + "|" + produceDataRule.getColRules();
+
+        RecordWriter recordWriter = createRecordWriter(0);
+        try {
+            return DatasetCache.openOrBuild(context.getDatasetCachePath(), descriptor, context.getDatasetCacheBatches(),
+                    produceDataRule.getBatchSize(), tailRows, new DataProducerImpl(produceDataRule), recordWriter);
+        } finally {
+            recordWriter.close();
+        }
+    }
+
+    /**
+     * 创建batch池，
+     * 数量为队列长度 + 生成线程数 + 发送线程数 * 每个发送线程在途请求数，保证每个线程手中、在途请求及队列中都有batch可用，
+     * 池中batch全部在使用时生成线程阻塞等待，因此内存占用固定
+     */
+    private static BlockingQueue<ColumnBatch> createBatchPool() {
+        int poolSize = context.getQueueSize() + context.getGeneratorNum() + context.getConcurrentNum() * context.getInFlightPerWorker();
+        DataProducer dataProducer = new DataProducerImpl(context.getProduceDataRule());
+        BlockingQueue<ColumnBatch> freeQueue = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            freeQueue.add(dataProducer.createColumnBatch(context.getProduceDataRule().getBatchSize()));
+        }
+        return freeQueue;
+    }
+
+    /**
+     * 启动生成线程，
+     * 各生成线程领取行数并生成batch放入readyQueue，
+     * 领取完毕后，最后一个结束的生成线程为每个发送线程放入一个END_BATCH；
+     * 任一生成线程异常时记录到generatorError，其余生成线程不再领取，发送线程随后停止
+     */
+    private static void generatorExec(RowBudget rowBudget, BlockingQueue<ColumnBatch> readyQueue, BlockingQueue<ColumnBatch> freeQueue) {
+        AtomicInteger runningGeneratorNum = new AtomicInteger(context.getGeneratorNum());
+        for (int i = 0; i < context.getGeneratorNum(); i++) {
+            int finalI = i;
+            context.getGenerateThreadPool().submit(() -> {
+                LoadProfile loadProfile = context.getLoadProfile();
+                RowBudget.RowRange rowRange = null;
+                // 已从freeQueue取出、尚未放入readyQueue的batch
+                ColumnBatch columnBatch = null;
+                try {
+                    DataProducer dataProducer = new DataProducerImpl(context.getProduceDataRule());
+                    while ((loadProfile == null || ! loadProfile.isFinished()) && generatorError.get() == null){
+                        rowRange = rowBudget.claim(context.getProduceDataRule().getBatchSize());
+                        if (rowRange == null){
+                            break;
+                        }
+
+                        columnBatch = freeQueue.take();
+                        dataProducer.produceBatch(columnBatch, rowRange.getStart(), rowRange.getSize());
+                        readyQueue.put(columnBatch);
+                        columnBatch = null;
+                    }
+                } catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                } catch (Exception e){
+                    logger.error("生成线程("+finalI+") error"
+                            + (rowRange != null ? "，行号[" + rowRange.getStart() + ", " + (rowRange.getStart() + rowRange.getSize()) + ")未生成" : ""), e);
+                    generatorError.compareAndSet(null, e);
+                    if (columnBatch != null){
+                        freeQueue.offer(columnBatch);
+                    }
+                    if (loadProfile != null){
+                        loadProfile.finish();
+                    }
+                } finally {
+                    if (runningGeneratorNum.decrementAndGet() == 0){
+                        for (int j = 0; j < context.getConcurrentNum(); j++) {
+                            try {
+                                readyQueue.put(END_BATCH);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                break;
+                            }
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private static void executorExec(ExecRes[] execResArr, BlockingQueue<ColumnBatch> readyQueue, BlockingQueue<ColumnBatch> freeQueue,
+                                     DatasetCache datasetCache, RowBudget rowBudget, CountDownLatch latch) {
         for (int i = 0; i < context.getConcurrentNum(); i++) {
             int finalI = i;
             context.getInsertThreadPool().submit(() -> {
                 ExecRes execRes = new ExecRes();
                 execResArr[finalI] = execRes;
 
-                int insertSum = 0;
-                int batches = 0;
                 long startTime = System.currentTimeMillis();
-                long consumeTime = 0;
+                long waitTime = 0;
                 RecordWriter recordWriter = null;
+                OpenLoopSchedule schedule = context.getOpenLoopSchedule();
+                LoadProfile loadProfile = context.getLoadProfile();
+                InFlightLimiter inFlightLimiter = context.getInFlightLimiter();
+                // 本线程的在途请求数，同步发送时为null
+                int inFlightPerWorker = context.getInFlightPerWorker();
+                Semaphore inFlight = inFlightPerWorker > 1 ? new Semaphore(inFlightPerWorker) : null;
                 try {
-                    int batchSize = context.getProduceDataRule().getBatchSize();
-                    DataProducer dataProducer = new DataProducerImpl(context.getProduceDataRule());
-                    switch (context.getSendType()){
-                        case JDBC:
-                            recordWriter = new JdbcBatchRecordWriter(
-                                    context.getProduceDataRule().getDbName(),
-                                    context.getProduceDataRule().getTableName(),
-                                    context.getProduceDataRule().getColRules().stream().map(ProduceDataConfig.ColRule::getColName).collect(Collectors.toList()),
-                                    dataProducer.dataTypeList(),
-                                    context.getConnectionList().get(finalI % context.getConnectionList().size()));
-                            break;
-                        case HTTP_STREAM:
-                            switch (context.getEngineType()){
-                                case CLICKHOUSE:
-                                    throw new IllegalArgumentException("clickhouse http stream not support at this time");
-                                case DORIS:
-                                    recordWriter = new DorisHttpStreamRecordWriter(
-                                            context.getProduceDataRule().getDbName(),
-                                            context.getProduceDataRule().getTableName(),
-                                            context.getDataSourceConfig().getUserName(),
-                                            context.getDataSourceConfig().getPassword(),
-                                            context.getHostInfoList().get(finalI % context.getHostInfoList().size()).getHost(),
-                                            context.getHostInfoList().get(finalI % context.getHostInfoList().size()).getHttpPort());
-                                    break;
-                            }
-                    }
+                    recordWriter = createRecordWriter(finalI);
 
-
-                    boolean finish = false;
                     while (true){
-                        try {
-                            synchronized (curInsertSum){
-                                int newInsertSum = curInsertSum.addAndGet(batchSize);
-                                if (newInsertSum > context.getProduceDataRule().getProduceNum()){
-                                    batchSize = Math.max(batchSize - (newInsertSum - context.getProduceDataRule().getProduceNum()), 0);
-                                    finish = true;
-                                }
-                            }
-
-                            for (int row = 0; row < batchSize; row++) {
-                                List<Object> data = dataProducer.produceSingleData();
-                                recordWriter.write(data);
+                        // 按负载阶段：当前阶段不需要该线程时等待，使用当前阶段的发送计划
+                        if (loadProfile != null){
+                            if (! loadProfile.awaitActive(finalI)){
+                                break;
                             }
+                            schedule = loadProfile.getSchedule();
+                        }
 
-                            long startFlush = System.currentTimeMillis();
-                            recordWriter.flush();
-                            long endFlush = System.currentTimeMillis();
-
-                            insertSum += batchSize;
+                        // open-loop：先领取计划开始时间并等到该时间，
+                        // 延迟从计划开始时间算起，包含等待生成及落后于计划的时间
+                        long scheduledStart = 0;
+                        if (schedule != null){
+                            scheduledStart = schedule.nextStartNanos();
+                            OpenLoopSchedule.waitUntil(scheduledStart);
+                        }
 
-                            consumeTime += (endFlush - startFlush);
-                            if (batchSize > 0){
-                                logger.info("Thread({}), id:{}, 提交batchSize:{}, 耗时:{}s，当前已提交:{}",finalI, Thread.currentThread().getId(), batchSize, (endFlush-startFlush)/1000, insertSum);
+                        // 待发送的数据：生成线程生成的columnBatch，或预生成缓存中的encodedBatch
+                        final ColumnBatch columnBatch;
+                        final EncodedBatch encodedBatch;
+                        if (datasetCache == null){
+                            long startWait = System.currentTimeMillis();
+                            columnBatch = takeBatch(readyQueue, loadProfile);
+                            waitTime += System.currentTimeMillis() - startWait;
+                            if (columnBatch == null){
+                                break;
                             }
-
-                            if (finish){
+                            if (columnBatch == END_BATCH){
+                                // 已生成完produce_num行，此前的batch均已被取走，提前结束负载阶段
+                                if (loadProfile != null){
+                                    loadProfile.finish();
+                                }
+                                break;
+                            }
+                            if (generatorError.get() != null){
+                                // 生成线程已失败，不再发送
+                                freeQueue.put(columnBatch);
+                                break;
+                            }
+                            encodedBatch = null;
+                        }else {
+                            RowBudget.RowRange rowRange = rowBudget.claim(context.getProduceDataRule().getBatchSize());
+                            if (rowRange == null){
+                                if (loadProfile != null){
+                                    loadProfile.finish();
+                                }
                                 break;
                             }
+                            columnBatch = null;
+                            encodedBatch = datasetCache.next(rowRange.getSize());
+                        }
 
-                            batches++;
-                        } catch (IOException e){
-                            logger.error("线程("+finalI+") IOException",e);
+                        int batchSize = columnBatch != null ? columnBatch.getSize() : encodedBatch.getRows();
+                        // 异步时先占用在途请求数，再占用字节额度，等待被中断时归还已占用的部分
+                        if (inFlight != null){
+                            inFlight.acquire();
+                        }
+                        long acquiredBytes;
+                        try {
+                            acquiredBytes = inFlightLimiter != null ? inFlightLimiter.acquire(batchSize) : 0;
+                        } catch (InterruptedException e){
+                            if (inFlight != null){
+                                inFlight.release();
+                            }
+                            if (columnBatch != null){
+                                freeQueue.offer(columnBatch);
+                            }
+                            throw e;
+                        }
+                        if (inFlight == null){
+                            FlushStats flushStats = null;
+                            try {
+                                submitBatch(recordWriter, columnBatch, encodedBatch);
+
+                                long startFlushNanos = System.nanoTime();
+                                recordWriter.flush();
+                                long endFlushNanos = System.nanoTime();
+
+                                flushStats = recordWriter.getLastFlushStats();
+                                onFlushed(execRes, finalI, batchSize, endFlushNanos - startFlushNanos,
+                                        endFlushNanos - (schedule != null ? scheduledStart : startFlushNanos), flushStats);
+                            } catch (IOException e){
+                                logger.error("线程("+finalI+") IOException",e);
+                            } finally {
+                                if (inFlightLimiter != null){
+                                    inFlightLimiter.release(acquiredBytes, batchSize, flushStats != null ? flushStats.getRawBytes() : 0);
+                                }
+                                // flush结束后writer不再读取该batch，可交给生成线程复用
+                                if (columnBatch != null){
+                                    freeQueue.put(columnBatch);
+                                }
+                            }
+                        }else {
+                            // 异步：在途请求数已满时已在上方等待，请求完成的回调中记录结果、归还额度、batch及在途请求数
+                            long startFlushNanos = System.nanoTime();
+                            long latencyStartNanos = schedule != null ? scheduledStart : startFlushNanos;
+                            CompletableFuture<FlushStats> future;
+                            try {
+                                submitBatch(recordWriter, columnBatch, encodedBatch);
+                                future = recordWriter.flushAsync();
+                            } catch (Exception e){
+                                // 包括RuntimeException，均交给回调归还在途请求数、额度及batch，否则结束时等待在途请求会一直阻塞
+                                future = new CompletableFuture<>();
+                                future.completeExceptionally(e);
+                            }
+                            future.whenComplete((flushStats, e) -> {
+                                try {
+                                    if (e == null){
+                                        long endFlushNanos = System.nanoTime();
+                                        onFlushed(execRes, finalI, batchSize, endFlushNanos - startFlushNanos, endFlushNanos - latencyStartNanos, flushStats);
+                                    }else {
+                                        logger.error("线程("+finalI+") IOException",e);
+                                    }
+                                } finally {
+                                    if (inFlightLimiter != null){
+                                        inFlightLimiter.release(acquiredBytes, e == null ? batchSize : 0, e == null && flushStats != null ? flushStats.getRawBytes() : 0);
+                                    }
+                                    // 池容量为batch总数，不会阻塞
+                                    if (columnBatch != null){
+                                        freeQueue.offer(columnBatch);
+                                    }
+                                    inFlight.release();
+                                }
+                            });
                         }
                     }
                 } catch (Exception e){
                     logger.error("线程("+finalI+") error",e);
                     execRes.setSuccess(false);
                     execRes.setErrMsg(e.toString());
+                } finally {
+                    // 等待本线程所有在途请求完成
+                    if (inFlight != null){
+                        inFlight.acquireUninterruptibly(inFlightPerWorker);
+                    }
                 }
 
                 // 执行结果
                 execRes.setThreadId(finalI);
-                execRes.setInsertSum(insertSum);
-                execRes.setInsertBatches(batches);
                 execRes.setStartTimestamp(startTime);
                 execRes.setEndTimestamp(System.currentTimeMillis());
-                execRes.setFlushConsumeTime(consumeTime);
+                execRes.setWaitConsumeTime(waitTime);
 
                 if (recordWriter!=null){
                     try {
@@ -218,12 +480,106 @@ public class Main {
         }
     }
 
+    private static void submitBatch(RecordWriter recordWriter, ColumnBatch columnBatch, EncodedBatch encodedBatch) throws IOException {
+        if (columnBatch != null){
+            recordWriter.writeBatch(columnBatch);
+        }else {
+            recordWriter.writeEncoded(encodedBatch);
+        }
+    }
+
+    /**
+     * 记录一次成功写入，异步发送时在请求完成的回调线程中调用
+     * @param flushNanos 请求耗时
+     * @param latencyNanos 延迟，open-loop时自计划开始时间起，否则同flushNanos
+     * @param flushStats 请求体统计，writer不支持时为null
+     */
+    private static void onFlushed(ExecRes execRes, int threadIndex, int batchSize, long flushNanos, long latencyNanos, FlushStats flushStats) {
+        long insertSum;
+        synchronized (execRes){
+            execRes.insertSum += batchSize;
+            execRes.insertBatches++;
+            execRes.flushConsumeTime += TimeUnit.NANOSECONDS.toMillis(flushNanos);
+            execRes.addLatency(latencyNanos);
+            if (flushStats != null){
+                execRes.addFlushStats(flushStats);
+            }
+            insertSum = execRes.insertSum;
+        }
+        context.getRunMetrics().recordBatch(batchSize, flushStats != null ? flushStats.getRawBytes() : 0, latencyNanos);
+
+        if (flushStats != null){
+            logger.info("Thread({}), id:{}, 提交batchSize:{}, 耗时:{}ms，原始字节:{}，发送字节:{}，压缩CPU耗时:{}ms，当前已提交:{}",
+                    threadIndex, Thread.currentThread().getId(), batchSize, TimeUnit.NANOSECONDS.toMillis(flushNanos),
+                    flushStats.getRawBytes(), flushStats.getCompressedBytes(), flushStats.getCompressCpuNanos() / 1000000, insertSum);
+        }else {
+            logger.info("Thread({}), id:{}, 提交batchSize:{}, 耗时:{}ms，当前已提交:{}",
+                    threadIndex, Thread.currentThread().getId(), batchSize, TimeUnit.NANOSECONDS.toMillis(flushNanos), insertSum);
+        }
+    }
+
+    /**
+     * 取出待发送的batch，
+     * 配置负载阶段时按时长结束，为避免结束后一直阻塞，定时检查是否已结束，已结束时返回null
+     */
+    private static ColumnBatch takeBatch(BlockingQueue<ColumnBatch> readyQueue, LoadProfile loadProfile) throws InterruptedException {
+        if (loadProfile == null){
+            return readyQueue.take();
+        }
+        ColumnBatch columnBatch = null;
+        while (columnBatch == null && ! loadProfile.isFinished()){
+            columnBatch = readyQueue.poll(100, TimeUnit.MILLISECONDS);
+        }
+        return columnBatch;
+    }
+
+    private static RecordWriter createRecordWriter(int threadIndex) throws IOException, SQLException {
+        List<String> colNameList = context.getProduceDataRule().getColRules().stream().map(ProduceDataConfig.ColRule::getColName).collect(Collectors.toList());
+        List<Integer> dataTypeList = new DataProducerImpl(context.getProduceDataRule()).dataTypeList();
+        switch (context.getSendType()){
+            case JDBC:
+                return new JdbcBatchRecordWriter(
+                        context.getProduceDataRule().getDbName(),
+                        context.getProduceDataRule().getTableName(),
+                        colNameList,
+                        dataTypeList,
+                        context.getConnectionList().get(threadIndex % context.getConnectionList().size()));
+            case HTTP_STREAM:
+                switch (context.getEngineType()){
+                    case CLICKHOUSE:
+                        return new ClickhouseHttpStreamRecordWriter(
+                                context.getHttpClient(),
+                                context.getProduceDataRule().getDbName(),
+                                context.getProduceDataRule().getTableName(),
+                                colNameList,
+                                dataTypeList,
+                                context.getDataSourceConfig().getUserName(),
+                                context.getDataSourceConfig().getPassword(),
+                                context.getHostInfoList().get(threadIndex % context.getHostInfoList().size()).getHost(),
+                                context.getHostInfoList().get(threadIndex % context.getHostInfoList().size()).getHttpPort(),
+                                context.getCompression());
+                    case DORIS:
+                        return new DorisHttpStreamRecordWriter(
+                                context.getHttpClient(),
+                                context.getProduceDataRule().getDbName(),
+                                context.getProduceDataRule().getTableName(),
+                                context.getDataSourceConfig().getUserName(),
+                                context.getDataSourceConfig().getPassword(),
+                                context.getHostInfoList().get(threadIndex % context.getHostInfoList().size()).getHost(),
+                                context.getHostInfoList().get(threadIndex % context.getHostInfoList().size()).getHttpPort(),
+                                context.getCompression());
+                }
+            default:
+                throw new IllegalArgumentException("send type not support: " + context.getSendType());
+        }
+    }
+
     @Data
     static class ExecRes{
         int threadId;
 
         // 总成功插入条数
-        int insertSum;
+        long insertSum;
 
         // 批次数
         int insertBatches;
@@ -240,27 +596,70 @@ public class Main {
         // 结束时间
         long endTimestamp;
 
-        // 写入总耗时
+        // 写入总耗时，异步发送时为各请求耗时之和，可能大于总耗时
         long flushConsumeTime;
 
+        // 等待生成线程的总耗时，占比高说明生成慢于发送，可调大generator_num
+        long waitConsumeTime;
+
+        // 请求体压缩前总字节数（仅http_stream）
+        long rawBytes;
+
+        // 请求体实际发送总字节数（仅http_stream）
+        long sentBytes;
+
+        // 压缩总CPU耗时，纳秒（仅http_stream）
+        long compressCpuNanos;
+
+        // 各批延迟分布，纳秒：open-loop时自计划开始时间起，否则为flush耗时，
+        // 异步发送时由OkHttp回调线程写入，所有写入均经onFlushed在execRes锁内进行
+        Histogram latencyHistogram = new Histogram(RunMetrics.SIGNIFICANT_DIGITS);
+
+        void addLatency(long latencyNanos){
+            latencyHistogram.recordValue(latencyNanos);
+        }
+
+        String latencyReport(){
+            return RunMetrics.latencySummary(latencyHistogram) + "，";
+        }
+
+        void addFlushStats(FlushStats flushStats){
+            rawBytes += flushStats.getRawBytes();
+            sentBytes += flushStats.getCompressedBytes();
+            compressCpuNanos += flushStats.getCompressCpuNanos();
+        }
+
+        // 请求体统计，无统计时为空串
+        String bytesReport(){
+            if (rawBytes == 0){
+                return "";
+            }
+            return "原始字节("+rawBytes+")，" +
+                    "发送字节("+sentBytes+")，" +
+                    "压缩率("+String.format("%.2f", (double) sentBytes / rawBytes)+")，" +
+                    "压缩CPU耗时("+(compressCpuNanos / 1000000)+")毫秒，";
+        }
+
         public String toReport(){
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
             if (success){
                 String startStr = sdf.format(startTimestamp);
                 String endStr = sdf.format(endTimestamp);
-                long totalTime = (endTimestamp - startTimestamp) / 1000;
-                long flushConsumeTimeS = (flushConsumeTime / 1000);
-                long avgSpeed = flushConsumeTimeS == 0 ? insertSum : insertSum/flushConsumeTimeS;
+                long totalTime = endTimestamp - startTimestamp;
 
                 return "threadId("+threadId+") 执行成功，" +
                         "成功写入条数("+insertSum+")，" +
                         "成功写入批次数("+insertBatches+")，" +
                         "启动时间("+startStr+")，" +
                         "结束时间("+endStr+")，" +
-                        "写入总耗时("+flushConsumeTimeS+")秒，" +
-                        "总耗时("+totalTime+")秒，" +
-                        "平均写入速度：("+avgSpeed+")行/秒;";
+                        "写入总耗时("+String.format("%.3f", flushConsumeTime / 1000d)+")秒，" +
+                        "等待生成总耗时("+String.format("%.3f", waitConsumeTime / 1000d)+")秒，" +
+                        latencyReport() +
+                        bytesReport() +
+                        "总耗时("+String.format("%.3f", totalTime / 1000d)+")秒，" +
+                        "平均写入速度：("+RunMetrics.perSecond(insertSum, flushConsumeTime)+")行/秒" +
+                        (rawBytes > 0 ? "，("+RunMetrics.mbPerSecond(rawBytes, flushConsumeTime)+")MB/秒（压缩前）" : "") + ";";
             }else {
                 return "threadId("+threadId+")执行失败，" +
                         "成功写入条数("+insertSum+")，" +
@@ -269,9 +668,8 @@ public class Main {
             }
         }
 
-        public long getAvgSpeed(){
-            long flushConsumeTimeS = (flushConsumeTime / 1000);
-            return flushConsumeTimeS == 0 ? insertSum : insertSum/flushConsumeTimeS;
+        public double getAvgSpeed(){
+            return flushConsumeTime == 0 ? 0 : insertSum * 1000d / flushConsumeTime;
         }
     }
 }
\ No newline at end of file
@@ -21,12 +21,16 @@ public class ProduceDataConfig {
 
     // 最多产生的数据量
     @JsonProperty("produce_num")
-    private int produceNum;
+    private long produceNum;
 
     // 批处理大小
     @JsonProperty("batch_size")
     private int batchSize;
 
+    // http_stream方式下请求体的压缩方式（none,gzip,lz4,zstd; doris不支持zstd），不填时不压缩
+    @JsonProperty("compression")
+    private String compression;
+
     // 行信息列表
     @JsonProperty("col_rules")
     private List<ColRule> colRules;
@@ -64,5 +68,25 @@ public class ProduceDataConfig {
         // DateTime类型数据是否使用最新时间
         @JsonProperty("data_time_latest")
         private boolean dataTimeLatest;
+
+        // 随机值在random_range内的分布（uniform, zipf, normal, hot_set），不填时为uniform
+        @JsonProperty("distribution")
+        private String distribution;
+
+        // zipf分布的偏斜参数s，第k常见的值出现概率与1/k^s成正比，不填时为1
+        @JsonProperty("zipf_skew")
+        private double zipfSkew;
+
+        // normal分布的标准差占random_range的比例，均值为范围中点，不填时为0.15
+        @JsonProperty("normal_stddev_ratio")
+        private double normalStddevRatio;
+
+        // hot_set分布中热点值占random_range的百分比，不填时为1
+        @JsonProperty("hot_set_percent")
+        private double hotSetPercent;
+
+        // hot_set分布中取热点值的行数百分比，不填时为90
+        @JsonProperty("hot_traffic_percent")
+        private double hotTrafficPercent;
     }
 }
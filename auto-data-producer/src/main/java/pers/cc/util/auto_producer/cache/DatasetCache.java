@@ -0,0 +1,201 @@
+package pers.cc.util.auto_producer.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pers.cc.util.auto_producer.producer.DataProducer;
+import pers.cc.util.auto_producer.producer.vector.ColumnBatch;
+import pers.cc.util.auto_producer.writer.EncodedBatch;
+import pers.cc.util.auto_producer.writer.FlushStats;
+import pers.cc.util.auto_producer.writer.RecordWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预生成数据缓存：发送前先生成N个batch，按writer的请求体格式编码（及压缩）后写入本地文件，
+ * 发送时通过内存映射读取，各发送线程循环使用这些batch，直接将映射的字节写入请求，
+ * 生成、编码及压缩都不计入测量，且多次运行可重放相同的数据
+ *
+ * 文件格式：各段编码数据 | 索引（描述串、段数、各段offset/length/rows/rawBytes） | 索引offset | MAGIC，
+ * 描述串包含引擎、压缩方式、batch大小及列规则等，与本次配置一致时直接复用已有文件，否则重新生成
+ *
+ * produce_num不是batch_size的整数倍时，额外生成一段余数行数的batch，只在最后一次领取时使用；
+ * 缓存中的数据循环重放，自增列的值在各轮之间重复
+ *
+ * @date 2026/10/19
+ */
+public class DatasetCache {
+    private static final Logger logger = LoggerFactory.getLogger(DatasetCache.class);
+    private static final long MAGIC = 0x6164704361636865L;
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private final EncodedBatch[] batches;
+    // 余数行数的batch，没有时为null
+    private final EncodedBatch tailBatch;
+    private final AtomicLong nextIndex = new AtomicLong();
+
+    private DatasetCache(EncodedBatch[] batches, EncodedBatch tailBatch) {
+        this.batches = batches;
+        this.tailBatch = tailBatch;
+    }
+
+    /**
+     * 打开缓存文件，不存在或与本次配置不一致时重新生成
+     * @param path 缓存文件路径
+     * @param descriptor 本次配置的描述串，用于判断已有文件是否可复用
+     * @param batchNum 完整batch数量
+     * @param batchSize 每个batch的行数
+     * @param tailRows 余数batch的行数，0时不生成
+     * @param dataProducer 生成数据
+     * @param recordWriter 编码数据，使用其encodeBatch
+     * @return pers.cc.util.auto_producer.cache.DatasetCache
+     */
+    public static DatasetCache openOrBuild(String path, String descriptor, int batchNum, int batchSize, int tailRows,
+                                           DataProducer dataProducer, RecordWriter recordWriter) throws IOException {
+        if (batchNum <= 0){
+            throw new IllegalArgumentException("dataset cache batch num must be positive");
+        }
+        Path cachePath = Paths.get(path);
+        if (Files.exists(cachePath)){
+            DatasetCache datasetCache = open(cachePath, descriptor);
+            if (datasetCache != null){
+                logger.info("复用数据缓存：{}，batch数：{}", cachePath, datasetCache.batches.length);
+                return datasetCache;
+            }
+            logger.info("数据缓存{}与当前配置不一致，重新生成", cachePath);
+        }
+
+        long start = System.currentTimeMillis();
+        build(cachePath, descriptor, batchNum, batchSize, tailRows, dataProducer, recordWriter);
+        DatasetCache datasetCache = open(cachePath, descriptor);
+        if (datasetCache == null){
+            throw new IOException("dataset cache build failed: " + cachePath);
+        }
+        logger.info("生成数据缓存：{}，batch数：{}，文件大小：{}，耗时：{}ms",
+                cachePath, batchNum, Files.size(cachePath), System.currentTimeMillis() - start);
+        return datasetCache;
+    }
+
+    /**
+     * 领取下一个batch，各发送线程共用，按顺序循环
+     * @param rows 本次领取的行数，为batch_size或余数行数
+     * @return pers.cc.util.auto_producer.writer.EncodedBatch
+     */
+    public EncodedBatch next(int rows) {
+        EncodedBatch encodedBatch = batches[(int) (nextIndex.getAndIncrement() % batches.length)];
+        if (rows == encodedBatch.getRows()){
+            return encodedBatch;
+        }
+        if (tailBatch != null && rows == tailBatch.getRows()){
+            return tailBatch;
+        }
+        throw new IllegalStateException("no cached batch with rows: " + rows);
+    }
+
+    // 生成到临时文件，完成后替换，避免中断时留下不完整的文件
+    private static void build(Path cachePath, String descriptor, int batchNum, int batchSize, int tailRows,
+                              DataProducer dataProducer, RecordWriter recordWriter) throws IOException {
+        Path tmpPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        int segmentNum = batchNum + (tailRows > 0 ? 1 : 0);
+        long[] offsets = new long[segmentNum];
+        long[] lengths = new long[segmentNum];
+        int[] rows = new int[segmentNum];
+        long[] rawBytes = new long[segmentNum];
+
+        ColumnBatch columnBatch = dataProducer.createColumnBatch(batchSize);
+        try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE);
+            for (int i = 0; i < segmentNum; i++) {
+                rows[i] = i < batchNum ? batchSize : tailRows;
+                dataProducer.produceBatch(columnBatch, (long) i * batchSize, rows[i]);
+
+                out.flush();
+                offsets[i] = channel.position();
+                FlushStats flushStats = recordWriter.encodeBatch(columnBatch, out);
+                out.flush();
+                lengths[i] = channel.position() - offsets[i];
+                rawBytes[i] = flushStats.getRawBytes();
+            }
+
+            long indexOffset = channel.position();
+            DataOutputStream indexOut = new DataOutputStream(out);
+            byte[] descriptorBytes = descriptor.getBytes(StandardCharsets.UTF_8);
+            indexOut.writeInt(descriptorBytes.length);
+            indexOut.write(descriptorBytes);
+            indexOut.writeInt(batchNum);
+            indexOut.writeInt(segmentNum);
+            for (int i = 0; i < segmentNum; i++) {
+                indexOut.writeLong(offsets[i]);
+                indexOut.writeLong(lengths[i]);
+                indexOut.writeInt(rows[i]);
+                indexOut.writeLong(rawBytes[i]);
+            }
+            indexOut.writeLong(indexOffset);
+            indexOut.writeLong(MAGIC);
+            indexOut.flush();
+            channel.force(true);
+        }
+        Files.move(tmpPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // 读取索引并映射各段，文件不完整或描述串不一致时返回null
+    private static DatasetCache open(Path cachePath, String descriptor) throws IOException {
+        try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 16){
+                return null;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(16);
+            channel.read(trailer, size - 16);
+            trailer.flip();
+            long indexOffset = trailer.getLong();
+            if (trailer.getLong() != MAGIC || indexOffset < 0 || indexOffset > size - 16){
+                return null;
+            }
+
+            DataInputStream indexIn = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(indexOffset))));
+            byte[] descriptorBytes = new byte[indexIn.readInt()];
+            indexIn.readFully(descriptorBytes);
+            if (! descriptor.equals(new String(descriptorBytes, StandardCharsets.UTF_8))){
+                return null;
+            }
+
+            int batchNum = indexIn.readInt();
+            int segmentNum = indexIn.readInt();
+            EncodedBatch[] batches = new EncodedBatch[batchNum];
+            EncodedBatch tailBatch = null;
+            for (int i = 0; i < segmentNum; i++) {
+                long offset = indexIn.readLong();
+                long length = indexIn.readLong();
+                int rows = indexIn.readInt();
+                long rawBytes = indexIn.readLong();
+
+                // 映射在channel关闭后仍有效，预先载入内存，发送时不读磁盘
+                MappedByteBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                body.load();
+                EncodedBatch encodedBatch = new EncodedBatch(body, rows, rawBytes);
+                if (i < batchNum){
+                    batches[i] = encodedBatch;
+                }else {
+                    tailBatch = encodedBatch;
+                }
+            }
+            return new DatasetCache(batches, tailBatch);
+        }
+    }
+}
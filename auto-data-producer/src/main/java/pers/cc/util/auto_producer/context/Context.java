@@ -3,9 +3,18 @@ package pers.cc.util.auto_producer.context;
 import pers.cc.util.auto_producer.ArgsConfig;
 import pers.cc.util.auto_producer.DataSourceConfig;
 import pers.cc.util.auto_producer.ProduceDataConfig;
+import pers.cc.util.auto_producer.producer.DataProducerImpl;
+import pers.cc.util.auto_producer.report.RunMetrics;
+import pers.cc.util.auto_producer.schedule.InFlightLimiter;
+import pers.cc.util.auto_producer.schedule.LoadProfile;
+import pers.cc.util.auto_producer.schedule.OpenLoopSchedule;
+import pers.cc.util.auto_producer.writer.Compression;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Getter;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -17,6 +26,7 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -38,8 +48,14 @@ public class Context {
     @Getter
     private volatile Timestamp currentTimestamp;
     @Getter
+    private ExecutorService generateThreadPool;
+    @Getter
     private int concurrentNum;
     @Getter
+    private int generatorNum;
+    @Getter
+    private int queueSize;
+    @Getter
     private SendType sendType;
     @Getter
     private List<DataSourceConfig.HostInfo> hostInfoList;
@@ -47,6 +63,34 @@ public class Context {
     private DataSourceConfig dataSourceConfig;
     @Getter
     private EngineType engineType;
+    @Getter
+    private Compression compression;
+    // open-loop发送计划，未指定目标速度时为null
+    @Getter
+    private OpenLoopSchedule openLoopSchedule;
+    // 负载阶段控制，未配置load_profile时为null
+    @Getter
+    private LoadProfile loadProfile;
+    // 所有发送线程共用的实时指标
+    @Getter
+    private final RunMetrics runMetrics = new RunMetrics();
+    // 每个发送线程同时在途的请求数，1时同步发送
+    @Getter
+    private int inFlightPerWorker;
+    // 在途请求字节数上限，未配置时为null
+    @Getter
+    private InFlightLimiter inFlightLimiter;
+    // 预生成数据缓存文件路径，未配置时为null
+    @Getter
+    private String datasetCachePath;
+    @Getter
+    private int datasetCacheBatches;
+    // 实时报告间隔秒数，0时不输出
+    @Getter
+    private int reportIntervalSeconds;
+    // http_stream方式下所有writer共用的client
+    @Getter
+    private OkHttpClient httpClient;
 
     private Context() {}
 
@@ -57,15 +101,45 @@ public class Context {
         return instance;
     }
 
+    /**
+     * 在创建连接及线程池前校验列规则，配置错误时直接抛出，不在运行中途失败
+     */
+    private static void validateColRules(ProduceDataConfig produceDataConfig) {
+        for (ProduceDataConfig.ColRule colRule : produceDataConfig.getColRules()) {
+            if (colRule.isAutoInc() && "DateTime".equals(colRule.getDataType())){
+                throw new IllegalArgumentException("col " + colRule.getColName() + " DateTime not support auto_inc");
+            }
+        }
+        // 按列规则创建一次各列的FieldProducer，校验data_type、distribution等
+        new DataProducerImpl(produceDataConfig);
+    }
+
     public void init(String[] args) throws JsonProcessingException, SQLException, ClassNotFoundException {
         if (args.length != 1){
             throw new IllegalArgumentException("args num error, need config json");
         }
 
         ArgsConfig argsConfig = mapper.readValue(args[0], ArgsConfig.class);
+        validateColRules(argsConfig.getProduceDataConfig());
+
+        // 并发数，配置负载阶段时为各阶段最大线程数
+        if (argsConfig.getLoadProfile() != null && ! argsConfig.getLoadProfile().isEmpty()){
+            if (argsConfig.getTargetRowsPerSecond() > 0 || argsConfig.getTargetBatchesPerSecond() > 0){
+                throw new IllegalArgumentException("arg target_rows_per_second/target_batches_per_second can not be set with load_profile, set them in stages");
+            }
+            this.loadProfile = new LoadProfile(argsConfig.getLoadProfile(), argsConfig.getConcurrentNum(),
+                    argsConfig.getProduceDataConfig().getBatchSize(), runMetrics);
+            this.concurrentNum = loadProfile.getMaxConcurrentNum();
+        }else {
+            if (argsConfig.getProduceDataConfig().getProduceNum() <= 0){
+                throw new IllegalArgumentException("arg produce_num must be positive without load_profile");
+            }
+            this.concurrentNum = argsConfig.getConcurrentNum();
+        }
 
-        // 并发数
-        this.concurrentNum = argsConfig.getConcurrentNum();
+        // 生成线程数及待发送队列长度
+        this.generatorNum = argsConfig.getGeneratorNum() > 0 ? argsConfig.getGeneratorNum() : concurrentNum;
+        this.queueSize = argsConfig.getQueueSize() > 0 ? argsConfig.getQueueSize() : concurrentNum;
 
         // 发送方式
         switch (argsConfig.getSendType()){
@@ -98,14 +172,66 @@ public class Context {
             this.connectionList = createDataConnectList(this.engineType, this.concurrentNum, argsConfig.getDataSourceConfig());
         }
 
+        // 异步发送
+        this.inFlightPerWorker = Math.max(argsConfig.getInFlightPerWorker(), 1);
+        if (inFlightPerWorker > 1 && sendType != SendType.HTTP_STREAM){
+            throw new IllegalArgumentException("arg in_flight_per_worker only support http_stream");
+        }
+        if (argsConfig.getMaxInFlightMb() > 0){
+            this.inFlightLimiter = new InFlightLimiter(argsConfig.getMaxInFlightMb() * 1024L * 1024L, concurrentNum * inFlightPerWorker);
+        }
+
+        // http client，连接池按最大在途请求数保留空闲连接，各批次复用连接，
+        // 异步请求由dispatcher执行，需放开其默认的并发限制（每个host 5个）
+        if (sendType == SendType.HTTP_STREAM){
+            int maxRequests = concurrentNum * inFlightPerWorker;
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequests);
+            this.httpClient = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool(maxRequests, 5, TimeUnit.MINUTES))
+                    .connectTimeout(600, TimeUnit.SECONDS)
+                    .readTimeout(600, TimeUnit.SECONDS)
+                    .writeTimeout(600, TimeUnit.SECONDS)
+                    .build();
+        }
+
         // 获取生产数据的规则
         this.produceDataRule = argsConfig.getProduceDataConfig();
 
         this.dataSourceConfig = argsConfig.getDataSourceConfig();
 
+        // 请求体压缩方式
+        this.compression = Compression.parse(produceDataRule.getCompression());
+
+        // 目标写入速度，统一换算为批/秒
+        if (argsConfig.getTargetRowsPerSecond() > 0 && argsConfig.getTargetBatchesPerSecond() > 0){
+            throw new IllegalArgumentException("arg target_rows_per_second and target_batches_per_second can not be set at the same time");
+        }
+        if (argsConfig.getTargetRowsPerSecond() > 0){
+            this.openLoopSchedule = new OpenLoopSchedule(argsConfig.getTargetRowsPerSecond() / produceDataRule.getBatchSize());
+        }else if (argsConfig.getTargetBatchesPerSecond() > 0){
+            this.openLoopSchedule = new OpenLoopSchedule(argsConfig.getTargetBatchesPerSecond());
+        }
+
+        this.reportIntervalSeconds = Math.max(argsConfig.getReportIntervalSeconds(), 0);
+
+        // 预生成数据缓存
+        if (argsConfig.getDatasetCachePath() != null && ! argsConfig.getDatasetCachePath().isEmpty()){
+            if (sendType != SendType.HTTP_STREAM){
+                throw new IllegalArgumentException("arg dataset_cache_path only support http_stream");
+            }
+            this.datasetCachePath = argsConfig.getDatasetCachePath();
+            this.datasetCacheBatches = argsConfig.getDatasetCacheBatches() > 0 ? argsConfig.getDatasetCacheBatches() : 100;
+        }
+
         // 生成insert线程池
         this.insertThreadPool = Executors.newFixedThreadPool(concurrentNum);
 
+        // 生成数据线程池
+        this.generateThreadPool = Executors.newFixedThreadPool(generatorNum);
+
         // 定时获取当前时间戳
         startCurrentTimestamp();
 
@@ -118,7 +244,12 @@ public class Context {
                 connection.close();
             }
             this.insertThreadPool.shutdownNow();
+            this.generateThreadPool.shutdownNow();
             this.timestampTimer.cancel();
+            if (this.httpClient != null){
+                this.httpClient.dispatcher().executorService().shutdown();
+                this.httpClient.connectionPool().evictAll();
+            }
         }
     }
 
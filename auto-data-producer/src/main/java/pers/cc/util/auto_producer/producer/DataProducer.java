@@ -1,5 +1,7 @@
 package pers.cc.util.auto_producer.producer;
 
+import pers.cc.util.auto_producer.producer.vector.ColumnBatch;
+
 import java.util.List;
 
 /**
@@ -9,5 +11,20 @@ import java.util.List;
 public interface DataProducer {
     List<Object> produceSingleData();
 
+    /**
+     * 创建存放一批数据的ColumnBatch，每列一个ColumnVector，可在各批之间复用
+     * @param capacity 每批最多行数，一般为batch_size
+     * @return pers.cc.util.auto_producer.producer.vector.ColumnBatch
+     */
+    ColumnBatch createColumnBatch(int capacity);
+
+    /**
+     * 按列一次生成一批数据，覆盖columnBatch中原有数据
+     * @param columnBatch createColumnBatch创建的ColumnBatch
+     * @param firstRowIndex 本批第一行的全局行号（从0开始），自增列的值由行号决定，各批行号不重叠时自增值全局唯一
+     * @param size 本批行数，不能超过capacity
+     */
+    void produceBatch(ColumnBatch columnBatch, long firstRowIndex, int size);
+
     List<Integer> dataTypeList();
 }
@@ -3,6 +3,8 @@ package pers.cc.util.auto_producer.producer;
 import pers.cc.util.auto_producer.ProduceDataConfig;
 import pers.cc.util.auto_producer.producer.col_producer.FieldProducer;
 import pers.cc.util.auto_producer.producer.col_producer.FieldProducerFactory;
+import pers.cc.util.auto_producer.producer.vector.ColumnBatch;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -34,6 +36,24 @@ public class DataProducerImpl implements DataProducer {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public ColumnBatch createColumnBatch(int capacity) {
+        return new ColumnBatch(fieldProducerList.stream()
+                .map(fieldProducer -> fieldProducer.createColumnVector(capacity))
+                .toArray(ColumnVector[]::new));
+    }
+
+    @Override
+    public void produceBatch(ColumnBatch columnBatch, long firstRowIndex, int size) {
+        columnBatch.setSize(size);
+
+        // 逐列生成，每列内连续填充
+        ColumnVector[] columns = columnBatch.getColumns();
+        for (int i = 0; i < columns.length; i++) {
+            fieldProducerList.get(i).produceColumn(columns[i], firstRowIndex, size);
+        }
+    }
+
     @Override
     public List<Integer> dataTypeList() {
         return this.dataTypeList;
@@ -2,6 +2,8 @@ package pers.cc.util.auto_producer.producer.col_producer;
 
 import pers.cc.util.auto_producer.ProduceDataConfig;
 import pers.cc.util.auto_producer.context.Context;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+import pers.cc.util.auto_producer.producer.vector.TimestampColumnVector;
 
 import java.sql.Timestamp;
 import java.sql.Types;
@@ -20,7 +22,7 @@ public class DateTimeFieldProducer extends FieldProducerBase{
         if (colRule.isDataTimeLatest()){
             return Context.getInstance().getCurrentTimestamp();
         }else {
-            return new Timestamp(random.nextInt(colRule.getRandomRange()));
+            return new Timestamp(valueSampler.next(random));
         }
     }
 
@@ -29,6 +31,29 @@ public class DateTimeFieldProducer extends FieldProducerBase{
         throw new IllegalArgumentException("DateTime not support auto increment");
     }
 
+    @Override
+    public ColumnVector createColumnVector(int capacity) {
+        return new TimestampColumnVector(capacity);
+    }
+
+    @Override
+    protected void produceColumnValues(ColumnVector columnVector, long firstRowIndex, int size) {
+        if (colRule.isAutoInc()){
+            throw new IllegalArgumentException("DateTime not support auto increment");
+        }
+
+        long[] millis = ((TimestampColumnVector) columnVector).getMillis();
+        boolean[] isNull = columnVector.getIsNull();
+        boolean latest = colRule.isDataTimeLatest();
+        // 最新时间每秒更新一次，同一批内取一次即可
+        long currentMillis = latest ? Context.getInstance().getCurrentTimestamp().getTime() : 0;
+        for (int row = 0; row < size; row++) {
+            if (! isNull[row]){
+                millis[row] = latest ? currentMillis : valueSampler.next(random);
+            }
+        }
+    }
+
     @Override
     public int fieldType() {
         return Types.TIMESTAMP;
@@ -1,27 +1,61 @@
 package pers.cc.util.auto_producer.producer.col_producer;
 
 import pers.cc.util.auto_producer.ProduceDataConfig;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+import pers.cc.util.auto_producer.producer.vector.DecimalColumnVector;
+import pers.cc.util.auto_producer.producer.vector.DecimalValuePool;
 
 import java.math.BigDecimal;
 import java.sql.Types;
 
 /**
+ * 生成一位小数的Decimal，整数部分规则同Int，
+ * 随机值的基数（random_range）较小时使用值池，各行直接返回预先生成的BigDecimal
  * @author Chen768959
  * @date 2024/1/11
  */
 public class DecimalFieldProducer extends IntFieldProducer{
+    private static final int SCALE = 1;
+    // 随机值的值池，非标度值为[randomAdd * 10, (randomAdd + random_range) * 10)，自增列或基数过大时为null
+    private final DecimalValuePool valuePool;
+
     public DecimalFieldProducer(ProduceDataConfig.ColRule colRule) {
         super(colRule);
+
+        this.valuePool = colRule.isAutoInc() ? null : DecimalValuePool.get(randomAdd * 10L, colRule.getRandomRange() * 10L, SCALE);
     }
 
     @Override
     protected Object produceRandomField() {
-        return new BigDecimal(super.produceRandomField()+"."+random.nextInt(4));
+        long unscaled = toUnscaled(nextRandomInt());
+        return valuePool == null ? BigDecimal.valueOf(unscaled, SCALE) : valuePool.getValue(unscaled);
     }
 
     @Override
     protected Object produceAutoIncField() {
-        return new BigDecimal(super.produceAutoIncField()+"."+random.nextInt(4));
+        return BigDecimal.valueOf(toUnscaled(nextAutoIncInt()), SCALE);
+    }
+
+    @Override
+    public ColumnVector createColumnVector(int capacity) {
+        return new DecimalColumnVector(capacity, SCALE, valuePool);
+    }
+
+    @Override
+    protected void produceColumnValues(ColumnVector columnVector, long firstRowIndex, int size) {
+        long[] unscaledValues = ((DecimalColumnVector) columnVector).getUnscaledValues();
+        boolean[] isNull = columnVector.getIsNull();
+        boolean autoInc = colRule.isAutoInc();
+        for (int row = 0; row < size; row++) {
+            if (! isNull[row]){
+                unscaledValues[row] = toUnscaled(autoInc ? autoIncInt(firstRowIndex + row) : nextRandomInt());
+            }
+        }
+    }
+
+    // 整数部分拼接随机一位小数（0~3）
+    private long toUnscaled(int intPart) {
+        return intPart * 10L + random.nextInt(4);
     }
 
     @Override
@@ -1,5 +1,7 @@
 package pers.cc.util.auto_producer.producer.col_producer;
 
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+
 /**
  * @author Chen768959
  * @date 2024/1/11
@@ -7,6 +9,22 @@ package pers.cc.util.auto_producer.producer.col_producer;
 public interface FieldProducer {
     Object produceField();
 
+    /**
+     * 创建存放该列一批数据的ColumnVector，类型与fieldType对应
+     * @param capacity 最多存放行数
+     * @return pers.cc.util.auto_producer.producer.vector.ColumnVector
+     */
+    ColumnVector createColumnVector(int capacity);
+
+    /**
+     * 一次生成size行数据，填入columnVector的[0, size)行，
+     * 生成规则与produceField相同，但自增列第row行的值由全局行号firstRowIndex + row决定，不依赖本producer已生成的行数
+     * @param columnVector createColumnVector创建的ColumnVector
+     * @param firstRowIndex 第一行的全局行号（从0开始）
+     * @param size 行数
+     */
+    void produceColumn(ColumnVector columnVector, long firstRowIndex, int size);
+
     /**
      * @return sqlType the SQL type code defined in <code>java.sql.Types</code>
      */
@@ -1,6 +1,9 @@
 package pers.cc.util.auto_producer.producer.col_producer;
 
 import pers.cc.util.auto_producer.ProduceDataConfig;
+import pers.cc.util.auto_producer.producer.distribution.ValueSampler;
+import pers.cc.util.auto_producer.producer.distribution.ValueSamplerFactory;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
 
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -11,10 +14,13 @@ import java.util.concurrent.ThreadLocalRandom;
 public abstract class FieldProducerBase implements FieldProducer{
     protected final ProduceDataConfig.ColRule colRule;
     protected final ThreadLocalRandom random = ThreadLocalRandom.current();
+    // 随机值在[0, random_range)内的分布，不支持自增的类型（如Float）在自增列上也使用
+    protected final ValueSampler valueSampler;
 
     public FieldProducerBase(ProduceDataConfig.ColRule colRule){
 
         this.colRule = colRule;
+        this.valueSampler = ValueSamplerFactory.create(colRule);
     }
     @Override
     public Object produceField() {
@@ -29,6 +35,26 @@ public abstract class FieldProducerBase implements FieldProducer{
         }
     }
 
+    @Override
+    public void produceColumn(ColumnVector columnVector, long firstRowIndex, int size) {
+        // 先确定null行，再由子类一次填充整列非null行的值
+        boolean[] isNull = columnVector.getIsNull();
+        boolean hasNull = colRule.isHasNull();
+        for (int row = 0; row < size; row++) {
+            isNull[row] = hasNull && random.nextInt(100) == 0;
+        }
+
+        produceColumnValues(columnVector, firstRowIndex, size);
+    }
+
+    /**
+     * 填充columnVector中[0, size)内非null行的值
+     * @param columnVector 该列的ColumnVector
+     * @param firstRowIndex 第一行的全局行号，自增列第row行的值为firstRowIndex + row + 1
+     * @param size 行数
+     */
+    protected abstract void produceColumnValues(ColumnVector columnVector, long firstRowIndex, int size);
+
     protected abstract Object produceRandomField();
 
     protected abstract Object produceAutoIncField();
@@ -1,6 +1,8 @@
 package pers.cc.util.auto_producer.producer.col_producer;
 
 import pers.cc.util.auto_producer.ProduceDataConfig;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+import pers.cc.util.auto_producer.producer.vector.FloatColumnVector;
 
 import java.sql.Types;
 
@@ -15,14 +17,29 @@ public class FloatFieldProducer extends IntFieldProducer{
 
     @Override
     protected Object produceRandomField() {
-        return (int)super.produceRandomField() + 0.1f;
+        return nextRandomInt() + 0.1f;
     }
 
     @Override
     protected Object produceAutoIncField() {
-        return (int)super.produceRandomField() + 0.1f;
+        return nextRandomInt() + 0.1f;
     }
 
+    @Override
+    public ColumnVector createColumnVector(int capacity) {
+        return new FloatColumnVector(capacity);
+    }
+
+    @Override
+    protected void produceColumnValues(ColumnVector columnVector, long firstRowIndex, int size) {
+        float[] values = ((FloatColumnVector) columnVector).getValues();
+        boolean[] isNull = columnVector.getIsNull();
+        for (int row = 0; row < size; row++) {
+            if (! isNull[row]){
+                values[row] = nextRandomInt() + 0.1f;
+            }
+        }
+    }
 
     @Override
     public int fieldType() {
@@ -1,6 +1,8 @@
 package pers.cc.util.auto_producer.producer.col_producer;
 
 import pers.cc.util.auto_producer.ProduceDataConfig;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+import pers.cc.util.auto_producer.producer.vector.IntColumnVector;
 
 import java.sql.Types;
 
@@ -35,11 +37,41 @@ public class IntFieldProducer extends FieldProducerBase{
 
     @Override
     protected Object produceRandomField() {
-        return randomAdd+random.nextInt(colRule.getRandomRange());
+        return nextRandomInt();
     }
 
     @Override
     protected Object produceAutoIncField() {
+        return nextAutoIncInt();
+    }
+
+    @Override
+    public ColumnVector createColumnVector(int capacity) {
+        return new IntColumnVector(capacity);
+    }
+
+    @Override
+    protected void produceColumnValues(ColumnVector columnVector, long firstRowIndex, int size) {
+        int[] values = ((IntColumnVector) columnVector).getValues();
+        boolean[] isNull = columnVector.getIsNull();
+        boolean autoInc = colRule.isAutoInc();
+        for (int row = 0; row < size; row++) {
+            if (! isNull[row]){
+                values[row] = autoInc ? autoIncInt(firstRowIndex + row) : nextRandomInt();
+            }
+        }
+    }
+
+    protected int nextRandomInt() {
+        return randomAdd+valueSampler.next(random);
+    }
+
+    // 全局行号对应的自增值，与nextAutoIncInt相同取值范围[1, Integer.MAX_VALUE)，超出后从1重新开始
+    protected static int autoIncInt(long rowIndex) {
+        return (int) (rowIndex % (Integer.MAX_VALUE - 1)) + 1;
+    }
+
+    protected int nextAutoIncInt() {
         autoIncInt++;
         if (autoIncInt == Integer.MAX_VALUE){
             autoIncInt = 1;
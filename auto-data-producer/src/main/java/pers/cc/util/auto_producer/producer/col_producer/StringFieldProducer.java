@@ -1,42 +1,63 @@
 package pers.cc.util.auto_producer.producer.col_producer;
 
 import pers.cc.util.auto_producer.ProduceDataConfig;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+import pers.cc.util.auto_producer.producer.vector.StringColumnVector;
+import pers.cc.util.auto_producer.producer.vector.StringValuePool;
 
 import java.sql.Types;
 
 /**
+ * 生成“固定前缀 + 有序补全字符串 + 数值”形式的字符串，
+ * 随机值的基数（random_range）较小时使用值池，各行直接取用预先生成的String
  * @author Chen768959
  * @date 2024/1/11
  */
 public class StringFieldProducer extends FieldProducerBase{
-    private int orderlyStringLen;
-    private int autoIncInt = 0;
-    private String autoIncRounds = "";
+    // 固定前缀 + 有序补全字符串，各行相同
+    private final String prefix;
+    // 随机值的值池，自增列或基数过大时为null
+    private final StringValuePool valuePool;
+    private long autoIncNum = 0;
 
     public StringFieldProducer(ProduceDataConfig.ColRule colRule) {
         super(colRule);
 
-        this.orderlyStringLen = colRule.getNearLen() - Integer.toString(colRule.getRandomRange()).length() - colRule.getStringPreRegular().length();
+        int orderlyStringLen = colRule.getNearLen() - Integer.toString(colRule.getRandomRange()).length() - colRule.getStringPreRegular().length();
         if (orderlyStringLen<0){
             orderlyStringLen = 0;
         }
+        this.prefix = colRule.getStringPreRegular() + generateOrderlyString(orderlyStringLen);
+        this.valuePool = colRule.isAutoInc() ? null : StringValuePool.get(prefix, colRule.getRandomRange());
     }
 
     @Override
     protected Object produceRandomField() {
-        return colRule.getStringPreRegular() + generateOrderlyString(orderlyStringLen) + random.nextInt(colRule.getRandomRange());
+        int code = valueSampler.next(random);
+        return valuePool == null ? prefix + code : valuePool.getValue(code);
     }
 
     @Override
     protected Object produceAutoIncField() {
-        autoIncInt++;
-        if (autoIncInt == Integer.MAX_VALUE){
-            autoIncInt = 1;
-            autoIncRounds+="X";
-        }
-        return colRule.getStringPreRegular() + generateOrderlyString(orderlyStringLen) + autoIncRounds + autoIncInt;
+        return prefix + (++autoIncNum);
+    }
+
+    @Override
+    public ColumnVector createColumnVector(int capacity) {
+        return new StringColumnVector(capacity, prefix, valuePool);
     }
 
+    @Override
+    protected void produceColumnValues(ColumnVector columnVector, long firstRowIndex, int size) {
+        long[] codes = ((StringColumnVector) columnVector).getCodes();
+        boolean[] isNull = columnVector.getIsNull();
+        boolean autoInc = colRule.isAutoInc();
+        for (int row = 0; row < size; row++) {
+            if (! isNull[row]){
+                codes[row] = autoInc ? firstRowIndex + row + 1 : valueSampler.next(random);
+            }
+        }
+    }
 
     @Override
     public int fieldType() {
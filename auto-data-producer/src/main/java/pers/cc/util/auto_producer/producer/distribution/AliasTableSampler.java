@@ -0,0 +1,75 @@
+package pers.cc.util.auto_producer.producer.distribution;
+
+import java.util.Random;
+
+/**
+ * 按任意权重抽样的别名表（Vose alias method），构建O(n)，每次抽样O(1)且只取一次随机数：
+ * 随机数的整数部分选桶，小数部分与该桶的概率比较，决定取桶本身还是其别名
+ * @date 2026/10/19
+ */
+class AliasTableSampler implements ValueSampler {
+    private final double[] prob;
+    private final int[] alias;
+
+    /**
+     * @param weights 各值的权重，非负且不全为0
+     */
+    AliasTableSampler(double[] weights) {
+        int n = weights.length;
+        this.prob = new double[n];
+        this.alias = new int[n];
+
+        double sum = 0;
+        for (double weight : weights) {
+            sum += weight;
+        }
+        if (! (sum > 0)){
+            throw new IllegalArgumentException("alias table weights sum must be positive");
+        }
+
+        // 按均值缩放为1，小于1的为small，其余为large
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1){
+                small[smallSize++] = i;
+            }else {
+                large[largeSize++] = i;
+            }
+        }
+
+        // 每个small桶用一个large值补满
+        while (smallSize > 0 && largeSize > 0){
+            int s = small[--smallSize];
+            int l = large[largeSize - 1];
+            prob[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1;
+            if (scaled[l] < 1){
+                largeSize--;
+                small[smallSize++] = l;
+            }
+        }
+        // 剩余的桶（含浮点误差）概率为1
+        while (largeSize > 0){
+            prob[large[--largeSize]] = 1;
+        }
+        while (smallSize > 0){
+            prob[small[--smallSize]] = 1;
+        }
+    }
+
+    @Override
+    public int next(Random random) {
+        double u = random.nextDouble() * prob.length;
+        int i = (int) u;
+        if (i >= prob.length){
+            i = prob.length - 1;
+        }
+        return u - i < prob[i] ? i : alias[i];
+    }
+}
@@ -0,0 +1,30 @@
+package pers.cc.util.auto_producer.producer.distribution;
+
+import java.util.Random;
+
+/**
+ * 截断到[0, range)的正态分布，超出范围时重新抽取，期望O(1)，
+ * 用于range过大不适合建别名表的情况
+ * @date 2026/10/19
+ */
+class GaussianSampler implements ValueSampler {
+    private final int range;
+    private final double mean;
+    private final double stddev;
+
+    GaussianSampler(int range, double mean, double stddev) {
+        this.range = range;
+        this.mean = mean;
+        this.stddev = stddev;
+    }
+
+    @Override
+    public int next(Random random) {
+        while (true){
+            double value = mean + stddev * random.nextGaussian();
+            if (value >= 0 && value < range){
+                return (int) value;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package pers.cc.util.auto_producer.producer.distribution;
+
+import java.util.Random;
+
+/**
+ * 热点分布：[0, hotSize)为热点值，hotTrafficRatio比例的行均匀取热点值，其余行均匀取其他值
+ * @date 2026/10/19
+ */
+class HotSetSampler implements ValueSampler {
+    private final int range;
+    private final int hotSize;
+    private final double hotTrafficRatio;
+
+    HotSetSampler(int range, int hotSize, double hotTrafficRatio) {
+        this.range = range;
+        this.hotSize = hotSize;
+        this.hotTrafficRatio = hotTrafficRatio;
+    }
+
+    @Override
+    public int next(Random random) {
+        if (hotSize >= range || random.nextDouble() < hotTrafficRatio){
+            return random.nextInt(hotSize);
+        }
+        return hotSize + random.nextInt(range - hotSize);
+    }
+}
@@ -0,0 +1,20 @@
+package pers.cc.util.auto_producer.producer.distribution;
+
+import java.util.Random;
+
+/**
+ * 均匀分布，同random.nextInt(range)
+ * @date 2026/10/19
+ */
+class UniformSampler implements ValueSampler {
+    private final int range;
+
+    UniformSampler(int range) {
+        this.range = range;
+    }
+
+    @Override
+    public int next(Random random) {
+        return random.nextInt(range);
+    }
+}
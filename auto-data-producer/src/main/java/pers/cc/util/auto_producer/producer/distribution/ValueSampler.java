@@ -0,0 +1,16 @@
+package pers.cc.util.auto_producer.producer.distribution;
+
+import java.util.Random;
+
+/**
+ * 在[0, range)内按指定分布抽取随机值，每次抽取为O(1)（或期望O(1)），
+ * 实现均为不可变对象，可在多个线程的FieldProducer间共用
+ * @date 2026/10/19
+ */
+public interface ValueSampler {
+    /**
+     * @param random 调用方线程的随机数生成器
+     * @return int [0, range)内的值
+     */
+    int next(Random random);
+}
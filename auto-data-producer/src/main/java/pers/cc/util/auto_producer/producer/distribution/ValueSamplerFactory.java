@@ -0,0 +1,85 @@
+package pers.cc.util.auto_producer.producer.distribution;
+
+import pers.cc.util.auto_producer.ProduceDataConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按列规则的distribution创建ValueSampler，
+ * 同一分布参数的sampler只创建一次，各生成线程的FieldProducer共用（别名表按range大小建表）
+ * @date 2026/10/19
+ */
+public class ValueSamplerFactory {
+    // range不大于该值时zipf及normal使用别名表，否则使用拒绝抽样，避免表过大
+    private static final int ALIAS_TABLE_MAX_RANGE = 1 << 20;
+    private static final double DEFAULT_ZIPF_SKEW = 1;
+    private static final double DEFAULT_NORMAL_STDDEV_RATIO = 0.15;
+    private static final double DEFAULT_HOT_SET_PERCENT = 1;
+    private static final double DEFAULT_HOT_TRAFFIC_PERCENT = 90;
+
+    private static final Map<String, ValueSampler> samplerCache = new ConcurrentHashMap<>();
+
+    /**
+     * @param colRule 列规则，使用其random_range及distribution相关配置
+     * @return pers.cc.util.auto_producer.producer.distribution.ValueSampler 返回[0, random_range)内的值
+     */
+    public static ValueSampler create(ProduceDataConfig.ColRule colRule) {
+        String distribution = colRule.getDistribution() == null ? "uniform" : colRule.getDistribution().toLowerCase();
+        int range = colRule.getRandomRange();
+        if ("uniform".equals(distribution)){
+            return new UniformSampler(range);
+        }
+        if (range <= 0){
+            throw new IllegalArgumentException("col " + colRule.getColName() + " distribution " + distribution + " need positive random_range");
+        }
+
+        switch (distribution){
+            case "zipf": {
+                double skew = colRule.getZipfSkew() > 0 ? colRule.getZipfSkew() : DEFAULT_ZIPF_SKEW;
+                return samplerCache.computeIfAbsent("zipf:" + range + ":" + skew, key -> createZipf(range, skew));
+            }
+            case "normal": {
+                double ratio = colRule.getNormalStddevRatio() > 0 ? colRule.getNormalStddevRatio() : DEFAULT_NORMAL_STDDEV_RATIO;
+                return samplerCache.computeIfAbsent("normal:" + range + ":" + ratio, key -> createNormal(range, ratio));
+            }
+            case "hot_set": {
+                double hotSetPercent = colRule.getHotSetPercent() > 0 ? colRule.getHotSetPercent() : DEFAULT_HOT_SET_PERCENT;
+                double hotTrafficPercent = colRule.getHotTrafficPercent() > 0 ? colRule.getHotTrafficPercent() : DEFAULT_HOT_TRAFFIC_PERCENT;
+                if (hotSetPercent > 100 || hotTrafficPercent > 100){
+                    throw new IllegalArgumentException("col " + colRule.getColName() + " hot_set_percent and hot_traffic_percent must not exceed 100");
+                }
+                int hotSize = (int) Math.max(1, Math.min(range, Math.round(range * hotSetPercent / 100)));
+                return new HotSetSampler(range, hotSize, hotTrafficPercent / 100);
+            }
+            default:
+                throw new IllegalArgumentException("col " + colRule.getColName() + " unknown distribution: " + colRule.getDistribution());
+        }
+    }
+
+    private static ValueSampler createZipf(int range, double skew) {
+        if (range > ALIAS_TABLE_MAX_RANGE){
+            return new ZipfSampler(range, skew);
+        }
+        double[] weights = new double[range];
+        for (int i = 0; i < range; i++) {
+            weights[i] = Math.pow(i + 1, -skew);
+        }
+        return new AliasTableSampler(weights);
+    }
+
+    // 均值为范围中点
+    private static ValueSampler createNormal(int range, double stddevRatio) {
+        double mean = range / 2d;
+        double stddev = range * stddevRatio;
+        if (range > ALIAS_TABLE_MAX_RANGE){
+            return new GaussianSampler(range, mean, stddev);
+        }
+        double[] weights = new double[range];
+        for (int i = 0; i < range; i++) {
+            double z = (i + 0.5 - mean) / stddev;
+            weights[i] = Math.exp(-0.5 * z * z);
+        }
+        return new AliasTableSampler(weights);
+    }
+}
@@ -0,0 +1,76 @@
+package pers.cc.util.auto_producer.producer.distribution;
+
+import java.util.Random;
+
+/**
+ * zipf分布的拒绝-逆变换抽样（Hörmann & Derflinger, rejection-inversion），
+ * 不需要按range大小建表，期望O(1)，用于range过大不适合建别名表的情况，
+ * 返回值k-1的概率与1/k^s成正比，即0最常见
+ * @date 2026/10/19
+ */
+class ZipfSampler implements ValueSampler {
+    private final int range;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralRange;
+    private final double s;
+
+    ZipfSampler(int range, double exponent) {
+        this.range = range;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1d;
+        this.hIntegralRange = hIntegral(range + 0.5);
+        this.s = 2d - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    @Override
+    public int next(Random random) {
+        while (true){
+            double u = hIntegralRange + random.nextDouble() * (hIntegralX1 - hIntegralRange);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1){
+                k = 1;
+            }else if (k > range){
+                k = range;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)){
+                return k - 1;
+            }
+        }
+    }
+
+    // h(x) = 1/x^exponent 的积分
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1d - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1d - exponent);
+        if (t < -1d){
+            t = -1d;
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    // log(1+x)/x，x接近0时取泰勒展开
+    private static double helper1(double x) {
+        if (Math.abs(x) > 1e-8){
+            return Math.log1p(x) / x;
+        }
+        return 1d - x * (0.5 - x * (1d / 3d - 0.25 * x));
+    }
+
+    // (exp(x)-1)/x，x接近0时取泰勒展开
+    private static double helper2(double x) {
+        if (Math.abs(x) > 1e-8){
+            return Math.expm1(x) / x;
+        }
+        return 1d + x * 0.5 * (1d + x / 3d * (1d + 0.25 * x));
+    }
+}
@@ -0,0 +1,46 @@
+package pers.cc.util.auto_producer.producer.vector;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一批数据的列式存放，每列一个ColumnVector，
+ * 容量固定为batch_size，同一线程内每批复用，size为当前批实际行数
+ * @date 2026/10/19
+ */
+public class ColumnBatch {
+    @Getter
+    private final ColumnVector[] columns;
+    @Getter
+    private int size;
+
+    public ColumnBatch(ColumnVector[] columns) {
+        this.columns = columns;
+    }
+
+    public void setSize(int size) {
+        if (size > capacity()) {
+            throw new IllegalArgumentException("batch size " + size + " exceeds capacity " + capacity());
+        }
+        this.size = size;
+    }
+
+    public int capacity() {
+        return columns.length == 0 ? 0 : columns[0].capacity();
+    }
+
+    /**
+     * 取出某行，装箱为行式写入使用的List<Object>，仅用于不支持列式写入的场景
+     * @param row 行下标
+     * @return java.util.List<java.lang.Object>
+     */
+    public List<Object> getRow(int row) {
+        List<Object> data = new ArrayList<>(columns.length);
+        for (ColumnVector column : columns) {
+            data.add(column.getObject(row));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,34 @@
+package pers.cc.util.auto_producer.producer.vector;
+
+import lombok.Getter;
+
+/**
+ * 单列的一批数据，按行下标存放，
+ * 由对应的FieldProducer创建并填充，同一线程内反复复用
+ * @date 2026/10/19
+ */
+public abstract class ColumnVector {
+    // 每行是否为null
+    @Getter
+    protected final boolean[] isNull;
+
+    protected ColumnVector(int capacity) {
+        this.isNull = new boolean[capacity];
+    }
+
+    public int capacity() {
+        return isNull.length;
+    }
+
+    /**
+     * 取出某行的值，装箱为行式写入时使用的类型
+     * （Integer、Float、BigDecimal、Timestamp、String），null行返回null
+     * @param row 行下标
+     * @return java.lang.Object
+     */
+    public Object getObject(int row) {
+        return isNull[row] ? null : getNonNullObject(row);
+    }
+
+    protected abstract Object getNonNullObject(int row);
+}
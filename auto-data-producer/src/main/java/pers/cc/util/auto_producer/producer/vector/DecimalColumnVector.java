@@ -0,0 +1,34 @@
+package pers.cc.util.auto_producer.producer.vector;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * 定点小数列，值为 unscaledValues[row] * 10^-scale，低基数列带有值池，取值时直接返回池中的BigDecimal
+ * @date 2026/10/19
+ */
+public class DecimalColumnVector extends ColumnVector {
+    @Getter
+    private final long[] unscaledValues;
+    @Getter
+    private final int scale;
+    // 值池，不使用时为null
+    private final DecimalValuePool valuePool;
+
+    public DecimalColumnVector(int capacity, int scale) {
+        this(capacity, scale, null);
+    }
+
+    public DecimalColumnVector(int capacity, int scale, DecimalValuePool valuePool) {
+        super(capacity);
+        this.unscaledValues = new long[capacity];
+        this.scale = scale;
+        this.valuePool = valuePool;
+    }
+
+    @Override
+    protected Object getNonNullObject(int row) {
+        return valuePool == null ? BigDecimal.valueOf(unscaledValues[row], scale) : valuePool.getValue(unscaledValues[row]);
+    }
+}
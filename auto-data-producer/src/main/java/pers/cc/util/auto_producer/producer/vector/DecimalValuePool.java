@@ -0,0 +1,53 @@
+package pers.cc.util.auto_producer.producer.vector;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 低基数定点小数列的值池：非标度值在[minUnscaled, minUnscaled + size)内，
+ * 数量不超过MAX_SIZE时预先生成全部BigDecimal，生成及取值时直接返回池中实例，
+ * 同一范围的池只创建一次，各生成线程共用
+ * @date 2026/10/19
+ */
+public class DecimalValuePool {
+    // 池中值数量上限
+    public static final int MAX_SIZE = 1 << 16;
+
+    private static final Map<String, DecimalValuePool> poolCache = new ConcurrentHashMap<>();
+
+    private final long minUnscaled;
+    private final int scale;
+    private final BigDecimal[] values;
+
+    private DecimalValuePool(long minUnscaled, int size, int scale) {
+        this.minUnscaled = minUnscaled;
+        this.scale = scale;
+        this.values = new BigDecimal[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = BigDecimal.valueOf(minUnscaled + i, scale);
+        }
+    }
+
+    /**
+     * @param minUnscaled 最小非标度值
+     * @param size 非标度值的个数
+     * @param scale 小数位数
+     * @return pers.cc.util.auto_producer.producer.vector.DecimalValuePool 个数不在(0, MAX_SIZE]内时返回null，不使用池
+     */
+    public static DecimalValuePool get(long minUnscaled, long size, int scale) {
+        if (size <= 0 || size > MAX_SIZE){
+            return null;
+        }
+        return poolCache.computeIfAbsent(minUnscaled + ":" + size + ":" + scale, key -> new DecimalValuePool(minUnscaled, (int) size, scale));
+    }
+
+    /**
+     * @param unscaled 非标度值，小数位数同池的scale
+     * @return java.math.BigDecimal 池中的值，不在池中时新建
+     */
+    public BigDecimal getValue(long unscaled) {
+        long index = unscaled - minUnscaled;
+        return index >= 0 && index < values.length ? values[(int) index] : BigDecimal.valueOf(unscaled, scale);
+    }
+}
@@ -0,0 +1,21 @@
+package pers.cc.util.auto_producer.producer.vector;
+
+import lombok.Getter;
+
+/**
+ * @date 2026/10/19
+ */
+public class FloatColumnVector extends ColumnVector {
+    @Getter
+    private final float[] values;
+
+    public FloatColumnVector(int capacity) {
+        super(capacity);
+        this.values = new float[capacity];
+    }
+
+    @Override
+    protected Object getNonNullObject(int row) {
+        return values[row];
+    }
+}
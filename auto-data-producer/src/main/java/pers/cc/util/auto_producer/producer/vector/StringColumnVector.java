@@ -0,0 +1,50 @@
+package pers.cc.util.auto_producer.producer.vector;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 字符串列，字典编码：
+ * 生成的字符串均为“列内固定前缀 + 数值”，因此只存放固定前缀及每行的数值编码，
+ * 值为 prefix + codes[row]，写入时可直接输出前缀及数字，无需为每行构造String；
+ * 低基数列带有值池，取值及编码时直接使用池中的String及字节
+ * @date 2026/10/19
+ */
+public class StringColumnVector extends ColumnVector {
+    @Getter
+    private final String prefix;
+    // prefix的UTF-8编码
+    @Getter
+    private final byte[] prefixBytes;
+    @Getter
+    private final long[] codes;
+    // 值池，不使用时为null
+    @Getter
+    private final StringValuePool valuePool;
+
+    public StringColumnVector(int capacity, String prefix) {
+        this(capacity, prefix, null);
+    }
+
+    public StringColumnVector(int capacity, String prefix, StringValuePool valuePool) {
+        super(capacity);
+        this.prefix = prefix;
+        this.prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        this.codes = new long[capacity];
+        this.valuePool = valuePool;
+    }
+
+    /**
+     * @param row 行下标，需为非null行
+     * @return byte[] 该行的值在值池中时返回其UTF-8字节，否则返回null，调用方不可修改
+     */
+    public byte[] getPooledBytes(int row) {
+        return valuePool == null ? null : valuePool.getBytes(codes[row]);
+    }
+
+    @Override
+    protected Object getNonNullObject(int row) {
+        return valuePool == null ? prefix + codes[row] : valuePool.getValue(codes[row]);
+    }
+}
@@ -0,0 +1,60 @@
+package pers.cc.util.auto_producer.producer.vector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 低基数字符串列的值池：随机值为“prefix + [0, size)内的数值”，
+ * 基数不超过MAX_SIZE时预先生成全部String及其UTF-8字节，生成及编码时直接取用，各行不再拼接字符串或输出数字，
+ * 同一前缀及基数的池只创建一次，各生成线程及writer共用
+ * @date 2026/10/19
+ */
+public class StringValuePool {
+    // 池中值数量上限
+    public static final int MAX_SIZE = 1 << 16;
+
+    private static final Map<String, StringValuePool> poolCache = new ConcurrentHashMap<>();
+
+    private final String prefix;
+    private final String[] values;
+    private final byte[][] valueBytes;
+
+    private StringValuePool(String prefix, int size) {
+        this.prefix = prefix;
+        this.values = new String[size];
+        this.valueBytes = new byte[size][];
+        for (int code = 0; code < size; code++) {
+            values[code] = prefix + code;
+            valueBytes[code] = values[code].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @param prefix 列内固定前缀
+     * @param size 数值部分的基数，即random_range
+     * @return pers.cc.util.auto_producer.producer.vector.StringValuePool 基数不在(0, MAX_SIZE]内时返回null，不使用池
+     */
+    public static StringValuePool get(String prefix, int size) {
+        if (size <= 0 || size > MAX_SIZE){
+            return null;
+        }
+        return poolCache.computeIfAbsent(size + ":" + prefix, key -> new StringValuePool(prefix, size));
+    }
+
+    /**
+     * @param code 数值部分
+     * @return java.lang.String 池中的值，不在池中时新建
+     */
+    public String getValue(long code) {
+        return code >= 0 && code < values.length ? values[(int) code] : prefix + code;
+    }
+
+    /**
+     * @param code 数值部分
+     * @return byte[] 池中值的UTF-8字节，不在池中时返回null，调用方不可修改
+     */
+    public byte[] getBytes(long code) {
+        return code >= 0 && code < valueBytes.length ? valueBytes[(int) code] : null;
+    }
+}
@@ -0,0 +1,24 @@
+package pers.cc.util.auto_producer.producer.vector;
+
+import lombok.Getter;
+
+import java.sql.Timestamp;
+
+/**
+ * 时间列，值为毫秒时间戳
+ * @date 2026/10/19
+ */
+public class TimestampColumnVector extends ColumnVector {
+    @Getter
+    private final long[] millis;
+
+    public TimestampColumnVector(int capacity) {
+        super(capacity);
+        this.millis = new long[capacity];
+    }
+
+    @Override
+    protected Object getNonNullObject(int row) {
+        return new Timestamp(millis[row]);
+    }
+}
@@ -0,0 +1,71 @@
+package pers.cc.util.auto_producer.report;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 运行过程中定时输出区间报告：区间内写入行数、行/秒、MB/秒及延迟分位数
+ * @date 2026/10/19
+ */
+public class LiveReporter {
+    private static final Logger logger = LoggerFactory.getLogger(LiveReporter.class);
+
+    private final RunMetrics runMetrics;
+    private final ScheduledExecutorService scheduledExecutorService;
+
+    private long lastMillis;
+    private long lastRows;
+    private long lastBytes;
+
+    public LiveReporter(RunMetrics runMetrics) {
+        this.runMetrics = runMetrics;
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param intervalSeconds 输出间隔秒数
+     */
+    public void start(int intervalSeconds) {
+        lastMillis = System.currentTimeMillis();
+        // 丢弃启动前的数据
+        runMetrics.getIntervalHistogram();
+        scheduledExecutorService.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        scheduledExecutorService.shutdownNow();
+    }
+
+    private void report() {
+        try {
+            long now = System.currentTimeMillis();
+            long rows = runMetrics.getRows();
+            long bytes = runMetrics.getBytes();
+            Histogram histogram = runMetrics.getIntervalHistogram();
+
+            long intervalMillis = now - lastMillis;
+            logger.info("[live] 区间({}s)，写入行数({})，速度({})行/秒，({})MB/秒（压缩前），累计行数({})，{}",
+                    String.format("%.3f", intervalMillis / 1000d),
+                    rows - lastRows,
+                    RunMetrics.perSecond(rows - lastRows, intervalMillis),
+                    RunMetrics.mbPerSecond(bytes - lastBytes, intervalMillis),
+                    rows,
+                    RunMetrics.latencySummary(histogram));
+
+            lastMillis = now;
+            lastRows = rows;
+            lastBytes = bytes;
+        } catch (Exception e) {
+            logger.error("live report error", e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package pers.cc.util.auto_producer.report;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 整个运行过程的实时指标，各发送线程每写入一批记录一次，
+ * 由LiveReporter定时、LoadProfile按阶段取出区间数据输出
+ * @date 2026/10/19
+ */
+public class RunMetrics {
+    // 延迟直方图精度，3位有效数字
+    public static final int SIGNIFICANT_DIGITS = 3;
+
+    // 实时报告与阶段报告各自按区间取出，互不影响
+    private final Recorder latencyRecorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final Recorder stageLatencyRecorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * 记录成功写入的一批
+     * @param rowNum 行数
+     * @param byteNum 请求体压缩前字节数，无统计时为0
+     * @param latencyNanos 延迟
+     */
+    public void recordBatch(int rowNum, long byteNum, long latencyNanos) {
+        rows.add(rowNum);
+        bytes.add(byteNum);
+        latencyRecorder.recordValue(latencyNanos);
+        stageLatencyRecorder.recordValue(latencyNanos);
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * 取出上次调用以来的延迟直方图，只应由一个线程调用
+     * @return org.HdrHistogram.Histogram
+     */
+    public Histogram getIntervalHistogram() {
+        return latencyRecorder.getIntervalHistogram();
+    }
+
+    /**
+     * 取出上次调用以来的延迟直方图，供阶段报告使用，只应由一个线程调用
+     * @return org.HdrHistogram.Histogram
+     */
+    public Histogram getStageHistogram() {
+        return stageLatencyRecorder.getIntervalHistogram();
+    }
+
+    /**
+     * 延迟分位数（毫秒）
+     * @param histogram 纳秒延迟直方图
+     * @return java.lang.String
+     */
+    public static String latencySummary(Histogram histogram) {
+        if (histogram.getTotalCount() == 0){
+            return "延迟(无)";
+        }
+        return "延迟(毫秒) " +
+                "p50(" + toMillis(histogram.getValueAtPercentile(50)) + ") " +
+                "p90(" + toMillis(histogram.getValueAtPercentile(90)) + ") " +
+                "p99(" + toMillis(histogram.getValueAtPercentile(99)) + ") " +
+                "p999(" + toMillis(histogram.getValueAtPercentile(99.9)) + ") " +
+                "max(" + toMillis(histogram.getMaxValue()) + ") " +
+                "mean(" + String.format("%.2f", histogram.getMean() / 1000000) + ")";
+    }
+
+    /**
+     * 按毫秒精度计算速度
+     * @param amount 数量
+     * @param millis 耗时毫秒数
+     * @return java.lang.String 每秒数量，保留两位小数
+     */
+    public static String perSecond(double amount, long millis) {
+        return millis <= 0 ? "0.00" : String.format("%.2f", amount * 1000 / millis);
+    }
+
+    /**
+     * 按毫秒精度计算每秒MB数
+     * @param bytes 字节数
+     * @param millis 耗时毫秒数
+     * @return java.lang.String 保留两位小数
+     */
+    public static String mbPerSecond(double bytes, long millis) {
+        return perSecond(bytes / 1024 / 1024, millis);
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.2f", nanos / 1000000d);
+    }
+}
@@ -0,0 +1,68 @@
+package pers.cc.util.auto_producer.schedule;
+
+/**
+ * 全局在途请求字节数上限，异步发送时所有发送线程共用，
+ * 发出请求前按行数预估请求体大小并占用额度，请求完成后归还，额度不足时等待
+ *
+ * 请求体边编码边发送，发出前不知道实际大小，按已完成请求的平均每行字节数（压缩前）预估，
+ * 尚无成功完成的请求时（包括请求持续失败时）每个请求按上限的平均份额（上限 / 最大在途请求数）预估，
+ * 因此启动时各线程的在途请求也能同时发出；
+ * 单个请求超过上限时，在没有其他在途请求时放行
+ *
+ * @date 2026/10/19
+ */
+public class InFlightLimiter {
+    private final long maxBytes;
+    // 尚无成功完成的请求时每个请求占用的字节数
+    private final long initialRequestBytes;
+    private long inFlightBytes;
+
+    // 已完成请求的累计行数及字节数，用于预估
+    private long completedRows;
+    private long completedBytes;
+
+    /**
+     * @param maxBytes 在途请求字节数上限
+     * @param maxRequests 最大在途请求数，即发送线程数 * 每个发送线程在途请求数
+     */
+    public InFlightLimiter(long maxBytes, int maxRequests) {
+        if (maxBytes <= 0 || maxRequests <= 0){
+            throw new IllegalArgumentException("maxBytes and maxRequests must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.initialRequestBytes = Math.max(maxBytes / maxRequests, 1);
+    }
+
+    /**
+     * 为即将发出的请求占用额度，额度不足时等待
+     * @param rows 请求包含的行数
+     * @return long 占用的字节数，请求完成后传给release
+     */
+    public synchronized long acquire(int rows) throws InterruptedException {
+        long bytes = completedRows == 0 ? initialRequestBytes : (long) ((double) completedBytes / completedRows * rows);
+        while (inFlightBytes > 0 && inFlightBytes + bytes > maxBytes){
+            wait();
+        }
+        inFlightBytes += bytes;
+        return bytes;
+    }
+
+    /**
+     * 请求完成后归还额度
+     * @param acquiredBytes acquire返回的字节数
+     * @param rows 请求包含的行数，请求失败时为0
+     * @param rawBytes 请求体实际字节数（压缩前），请求失败时为0
+     */
+    public synchronized void release(long acquiredBytes, int rows, long rawBytes) {
+        inFlightBytes -= acquiredBytes;
+        if (rows > 0 && rawBytes > 0){
+            completedRows += rows;
+            completedBytes += rawBytes;
+        }
+        notifyAll();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,282 @@
+package pers.cc.util.auto_producer.schedule;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pers.cc.util.auto_producer.LoadStageConfig;
+import pers.cc.util.auto_producer.report.RunMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按阶段控制负载：各阶段持续指定时长，期间控制活跃发送线程数及open-loop速率，
+ * ramp阶段内两者从上一阶段的值线性增长到本阶段的值，
+ * 通过组合阶段实现固定时长、线性加压、阶梯加压（每级保持一段时间）及长时间稳定运行
+ *
+ * 发送线程池按各阶段最大线程数创建，下标不小于当前活跃线程数的线程等待，
+ * 所有阶段结束后运行结束，每个阶段结束时输出该阶段的写入量、速度及延迟分位数
+ *
+ * @date 2026/10/19
+ */
+public class LoadProfile {
+    private static final Logger logger = LoggerFactory.getLogger(LoadProfile.class);
+    // 控制线程调整线程数及速率的间隔
+    private static final long TICK_MILLIS = 100;
+    // ramp阶段速率下限（批/秒），避免从0开始时计划间隔过长
+    private static final double MIN_BATCHES_PER_SECOND = 1;
+
+    private final List<Stage> stageList = new ArrayList<>();
+    private final RunMetrics runMetrics;
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final List<String> stageReportList = Collections.synchronizedList(new ArrayList<>());
+
+    // 以下均在持有锁时读写
+    private int stageIndex;
+    private long stageStartNanos;
+    private long stageStartRows;
+    private long stageStartBytes;
+    private boolean stageEnded;
+    private boolean started;
+
+    private volatile int activeThreadNum;
+    // 当前阶段的发送计划，不限速时为null
+    private volatile OpenLoopSchedule schedule;
+    private volatile boolean finished;
+
+    /**
+     * @param stageConfigList 阶段配置
+     * @param defaultConcurrentNum 阶段未指定线程数时使用的线程数
+     * @param batchSize 每批行数，用于将行/秒换算为批/秒
+     * @param runMetrics 运行指标，用于计算各阶段报告
+     */
+    public LoadProfile(List<LoadStageConfig> stageConfigList, int defaultConcurrentNum, int batchSize, RunMetrics runMetrics) {
+        this.runMetrics = runMetrics;
+
+        int prevThreadNum = 1;
+        double prevBatchesPerSecond = 0;
+        for (int i = 0; i < stageConfigList.size(); i++) {
+            LoadStageConfig stageConfig = stageConfigList.get(i);
+            if (stageConfig.getDurationSeconds() <= 0){
+                throw new IllegalArgumentException("load_profile stage " + i + " duration_seconds must be positive");
+            }
+            if (stageConfig.getTargetRowsPerSecond() > 0 && stageConfig.getTargetBatchesPerSecond() > 0){
+                throw new IllegalArgumentException("load_profile stage " + i + " target_rows_per_second and target_batches_per_second can not be set at the same time");
+            }
+
+            Stage stage = new Stage();
+            stage.name = stageConfig.getName() != null ? stageConfig.getName() : String.valueOf(i + 1);
+            stage.durationNanos = TimeUnit.SECONDS.toNanos(stageConfig.getDurationSeconds());
+            stage.ramp = stageConfig.isRamp();
+            stage.toThreadNum = stageConfig.getConcurrentNum() > 0 ? stageConfig.getConcurrentNum() : defaultConcurrentNum;
+            stage.toBatchesPerSecond = stageConfig.getTargetRowsPerSecond() > 0
+                    ? stageConfig.getTargetRowsPerSecond() / batchSize
+                    : stageConfig.getTargetBatchesPerSecond();
+            stage.fromThreadNum = stage.ramp ? prevThreadNum : stage.toThreadNum;
+            stage.fromBatchesPerSecond = stage.ramp ? prevBatchesPerSecond : stage.toBatchesPerSecond;
+            if (stage.toThreadNum <= 0){
+                throw new IllegalArgumentException("load_profile stage " + i + " concurrent_num must be positive");
+            }
+            stageList.add(stage);
+
+            prevThreadNum = stage.toThreadNum;
+            prevBatchesPerSecond = stage.toBatchesPerSecond;
+        }
+        if (stageList.isEmpty()){
+            throw new IllegalArgumentException("load_profile need at least one stage");
+        }
+
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-profile");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return int 各阶段的最大线程数，即需要创建的发送线程数
+     */
+    public int getMaxConcurrentNum() {
+        int max = 0;
+        for (Stage stage : stageList) {
+            max = Math.max(max, Math.max(stage.fromThreadNum, stage.toThreadNum));
+        }
+        return max;
+    }
+
+    /**
+     * 开始第一个阶段，开始前已结束（如生成线程已失败）时不再开始
+     */
+    public void start() {
+        synchronized (this){
+            if (finished){
+                return;
+            }
+            started = true;
+            startStage(0);
+            scheduledExecutorService.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 提前结束，如已生成完produce_num行时，各发送线程完成当前批次后退出
+     */
+    public void finish() {
+        synchronized (this){
+            finished = true;
+            notifyAll();
+        }
+        scheduledExecutorService.shutdownNow();
+    }
+
+    /**
+     * 所有发送线程退出后调用，提前结束时当前阶段按实际时长输出报告
+     */
+    public void close() {
+        scheduledExecutorService.shutdownNow();
+        synchronized (this){
+            finished = true;
+            if (started && ! stageEnded){
+                endStage();
+            }
+        }
+    }
+
+    /**
+     * 发送线程在每次发送前调用，当前不活跃时等待
+     * @param threadIndex 发送线程下标
+     * @return boolean 可以发送时返回true，运行已结束时返回false
+     */
+    public synchronized boolean awaitActive(int threadIndex) throws InterruptedException {
+        while (! finished && threadIndex >= activeThreadNum){
+            wait();
+        }
+        return ! finished;
+    }
+
+    public OpenLoopSchedule getSchedule() {
+        return schedule;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return java.util.List<java.lang.String> 已结束的各阶段报告
+     */
+    public List<String> getStageReportList() {
+        return new ArrayList<>(stageReportList);
+    }
+
+    private void tick() {
+        try {
+            synchronized (this){
+                if (finished){
+                    return;
+                }
+                long elapsedNanos = System.nanoTime() - stageStartNanos;
+                Stage stage = stageList.get(stageIndex);
+                if (elapsedNanos >= stage.durationNanos){
+                    endStage();
+                    if (stageIndex + 1 < stageList.size()){
+                        startStage(stageIndex + 1);
+                    }else {
+                        finished = true;
+                        notifyAll();
+                        scheduledExecutorService.shutdown();
+                    }
+                }else if (stage.ramp){
+                    applyLevel(stage, (double) elapsedNanos / stage.durationNanos);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("load profile error", e);
+        }
+    }
+
+    private void startStage(int index) {
+        stageIndex = index;
+        stageEnded = false;
+        stageStartNanos = System.nanoTime();
+        stageStartRows = runMetrics.getRows();
+        stageStartBytes = runMetrics.getBytes();
+        // 丢弃阶段开始前的延迟数据
+        runMetrics.getStageHistogram();
+
+        Stage stage = stageList.get(index);
+        schedule = null;
+        applyLevel(stage, 0);
+        logger.info("[stage] 开始阶段({}/{} {})，时长({})秒，线程数({})，目标速度({})",
+                index + 1, stageList.size(), stage.name, TimeUnit.NANOSECONDS.toSeconds(stage.durationNanos),
+                stage.threadNumDesc(), stage.batchesPerSecondDesc());
+    }
+
+    // 按阶段内进度设置活跃线程数及速率，调用时需持有锁
+    private void applyLevel(Stage stage, double fraction) {
+        int threadNum = (int) Math.round(stage.fromThreadNum + (stage.toThreadNum - stage.fromThreadNum) * fraction);
+        threadNum = Math.max(threadNum, 1);
+        if (threadNum != activeThreadNum){
+            activeThreadNum = threadNum;
+            notifyAll();
+        }
+
+        if (stage.toBatchesPerSecond > 0){
+            double batchesPerSecond = stage.fromBatchesPerSecond + (stage.toBatchesPerSecond - stage.fromBatchesPerSecond) * fraction;
+            batchesPerSecond = Math.max(batchesPerSecond, Math.min(MIN_BATCHES_PER_SECOND, stage.toBatchesPerSecond));
+            if (schedule == null){
+                schedule = new OpenLoopSchedule(batchesPerSecond);
+            }else {
+                schedule.setBatchesPerSecond(batchesPerSecond);
+            }
+        }
+    }
+
+    private void endStage() {
+        stageEnded = true;
+        Stage stage = stageList.get(stageIndex);
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stageStartNanos);
+        long rows = runMetrics.getRows() - stageStartRows;
+        long bytes = runMetrics.getBytes() - stageStartBytes;
+        Histogram histogram = runMetrics.getStageHistogram();
+
+        String report = "Stage("+(stageIndex + 1)+"/"+stageList.size()+" "+stage.name+") " +
+                "时长("+String.format("%.3f", durationMillis / 1000d)+")秒，" +
+                "线程数("+stage.threadNumDesc()+")，" +
+                "目标速度("+stage.batchesPerSecondDesc()+")，" +
+                "成功写入条数("+rows+")，" +
+                "成功写入批次数("+histogram.getTotalCount()+")，" +
+                "写入速度：("+RunMetrics.perSecond(rows, durationMillis)+")行/秒，" +
+                (bytes > 0 ? "("+RunMetrics.mbPerSecond(bytes, durationMillis)+")MB/秒（压缩前），" : "") +
+                RunMetrics.latencySummary(histogram) + ";";
+        stageReportList.add(report);
+        logger.info("[stage] {}", report);
+    }
+
+    private static class Stage {
+        private String name;
+        private long durationNanos;
+        private boolean ramp;
+        private int fromThreadNum;
+        private int toThreadNum;
+        // 批/秒，0时不限速
+        private double fromBatchesPerSecond;
+        private double toBatchesPerSecond;
+
+        private String threadNumDesc() {
+            return fromThreadNum == toThreadNum ? String.valueOf(toThreadNum) : fromThreadNum + "→" + toThreadNum;
+        }
+
+        private String batchesPerSecondDesc() {
+            if (toBatchesPerSecond <= 0){
+                return "不限速";
+            }
+            return (fromBatchesPerSecond == toBatchesPerSecond ? "" : String.format("%.2f", fromBatchesPerSecond) + "→")
+                    + String.format("%.2f", toBatchesPerSecond) + "批/秒";
+        }
+    }
+}
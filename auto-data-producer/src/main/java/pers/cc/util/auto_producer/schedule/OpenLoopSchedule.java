@@ -0,0 +1,67 @@
+package pers.cc.util.auto_producer.schedule;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * open-loop发送计划：按固定速率为每个batch分配计划开始时间，与服务端快慢无关，
+ * 第k个batch的计划开始时间为 首次领取时间 + k / batchesPerSecond 秒，按下标计算，不累积误差；
+ * 调整速率后以上一个计划开始时间为新的起点
+ *
+ * 发送线程领取计划开始时间后等到该时间再发送，若已落后于计划则立即发送，
+ * 延迟从计划开始时间算起，因此服务端变慢时排队等待的时间也计入延迟（避免coordinated omission）
+ *
+ * @date 2026/10/19
+ */
+public class OpenLoopSchedule {
+    private double batchesPerSecond;
+    private long startNanos;
+    private long nextIndex;
+
+    public OpenLoopSchedule(double batchesPerSecond) {
+        setBatchesPerSecond(batchesPerSecond);
+    }
+
+    /**
+     * 调整速率，之后的计划开始时间从上一个已领取的计划开始时间起按新速率计算
+     * @param batchesPerSecond 批/秒
+     */
+    public synchronized void setBatchesPerSecond(double batchesPerSecond) {
+        if (batchesPerSecond <= 0){
+            throw new IllegalArgumentException("batchesPerSecond must be positive");
+        }
+        if (nextIndex > 0){
+            startNanos += (long) ((nextIndex - 1) * 1000000000d / this.batchesPerSecond);
+            nextIndex = 1;
+        }
+        this.batchesPerSecond = batchesPerSecond;
+    }
+
+    /**
+     * 领取下一个batch的计划开始时间
+     * @return long System.nanoTime()下的时间
+     */
+    public synchronized long nextStartNanos() {
+        if (nextIndex == 0){
+            startNanos = System.nanoTime();
+        }
+        return startNanos + (long) (nextIndex++ * 1000000000d / batchesPerSecond);
+    }
+
+    public synchronized double getBatchesPerSecond() {
+        return batchesPerSecond;
+    }
+
+    /**
+     * 等待至指定时间，已过该时间时立即返回
+     * @param nanos System.nanoTime()下的时间
+     */
+    public static void waitUntil(long nanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = nanos - System.nanoTime()) > 0){
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()){
+                throw new InterruptedException();
+            }
+        }
+    }
+}
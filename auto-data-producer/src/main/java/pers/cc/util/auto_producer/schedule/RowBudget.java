@@ -0,0 +1,56 @@
+package pers.cc.util.auto_producer.schedule;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局行数预算，各生成（或发送）线程无锁领取互不重叠的行号区间，
+ * 区间起始行号即该批数据的全局行号，自增列按行号取值，因此多线程生成的自增值全局唯一
+ *
+ * 每次领取只做一次getAndAdd，超出预算的领取返回null，领取者随后退出，不会回退计数
+ *
+ * @date 2026/10/19
+ */
+public class RowBudget {
+    // 总行数，不大于0时不限制
+    private final long limit;
+    private final AtomicLong claimed = new AtomicLong();
+
+    public RowBudget(long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * 领取下一批的行号区间
+     * @param batchSize 每批行数
+     * @return pers.cc.util.auto_producer.schedule.RowBudget.RowRange 已领取完时返回null，最后一批可能不足batchSize
+     */
+    public RowRange claim(int batchSize) {
+        long start = claimed.getAndAdd(batchSize);
+        if (limit <= 0){
+            return new RowRange(start, batchSize);
+        }
+        if (start >= limit){
+            return null;
+        }
+        return new RowRange(start, (int) Math.min(batchSize, limit - start));
+    }
+
+    public static class RowRange {
+        private final long start;
+        private final int size;
+
+        private RowRange(long start, int size) {
+            this.start = start;
+            this.size = size;
+        }
+
+        // 区间第一行的全局行号，从0开始
+        public long getStart() {
+            return start;
+        }
+
+        public int getSize() {
+            return size;
+        }
+    }
+}
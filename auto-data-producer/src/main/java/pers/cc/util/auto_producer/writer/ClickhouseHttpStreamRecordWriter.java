@@ -1,8 +1,247 @@
 package pers.cc.util.auto_producer.writer;
 
+import okhttp3.*;
+import okio.BufferedSink;
+import okio.Okio;
+import pers.cc.util.auto_producer.producer.vector.ColumnBatch;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
+ * 以http接口写入clickhouse，请求为 INSERT INTO db.table (...) FORMAT RowBinary，
+ * 创建时通过DESCRIBE TABLE获取各列类型并确定编码方式，
+ * writeBatch只暂存数据，flush时边编码（及压缩）边以chunked方式发送，
+ * flushAsync时各请求独立持有待发送数据及统计，可同时有多个请求在途
+ *
+ * RowBinary需要按列的实际类型编码，只支持列式写入（writeBatch）
+ *
  * @author Chen768959
  * @date 2024/1/17
  */
-public class ClickhouseHttpStreamRecordWriter {
+public class ClickhouseHttpStreamRecordWriter implements RecordWriter {
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private final OkHttpClient client;
+    private final String user;
+    private final String password;
+    private final HttpUrl insertUrl;
+    private final Compression compression;
+    private final RowBinaryColumnEncoder[] encoders;
+    private final FlushStats lastFlushStats = new FlushStats();
+
+    // 待flush的数据
+    private final List<ColumnBatch> pendingBatchList = new ArrayList<>();
+    private final List<EncodedBatch> pendingEncodedList = new ArrayList<>();
+
+    /**
+     * @param client 发送请求的client，同一次运行的所有writer共用，由调用方关闭
+     * @param colNameList 写入的列名
+     * @param dataTypes 各列生成数据类型，java.sql.Types
+     * @param compression 请求体压缩方式
+     */
+    public ClickhouseHttpStreamRecordWriter(OkHttpClient client, String dbName, String tableName, List<String> colNameList, List<Integer> dataTypes,
+                                            String user, String password, String host, int port, Compression compression) throws IOException {
+        this.client = client;
+        this.user = user;
+        this.password = password;
+        this.compression = compression;
+
+        HttpUrl baseUrl = new HttpUrl.Builder().scheme("http").host(host).port(port).build();
+
+        // 按表结构确定各列编码方式
+        Map<String, String> columnTypeMap = describeTable(baseUrl, dbName, tableName);
+        this.encoders = new RowBinaryColumnEncoder[colNameList.size()];
+        for (int i = 0; i < colNameList.size(); i++) {
+            String columnType = columnTypeMap.get(colNameList.get(i));
+            if (columnType == null){
+                throw new IllegalArgumentException("column not found in clickhouse table "+dbName+"."+tableName+": " + colNameList.get(i));
+            }
+            encoders[i] = RowBinaryColumnEncoder.create(colNameList.get(i), columnType, dataTypes.get(i));
+        }
+
+        this.insertUrl = baseUrl.newBuilder()
+                .addQueryParameter("query", "INSERT INTO " + dbName + "." + tableName + " (" + String.join(", ", colNameList) + ") FORMAT RowBinary")
+                .build();
+    }
+
+    @Override
+    public void write(List<Object> writableData) throws IOException {
+        throw new UnsupportedOperationException("clickhouse http stream only support writeBatch");
+    }
+
+    /**
+     * 仅暂存columnBatch，flush时才编码发送，因此flush结束前不能修改columnBatch
+     */
+    @Override
+    public void writeBatch(ColumnBatch columnBatch) throws IOException {
+        this.pendingBatchList.add(columnBatch);
+    }
+
+    @Override
+    public void writeEncoded(EncodedBatch encodedBatch) throws IOException {
+        this.pendingEncodedList.add(encodedBatch);
+    }
+
+    @Override
+    public FlushStats encodeBatch(ColumnBatch columnBatch, OutputStream out) throws IOException {
+        FlushStats flushStats = new FlushStats();
+        try (BufferedSink encodeSink = Okio.buffer(Okio.sink(new CompressingOutputStream(compression, out, flushStats)))) {
+            encodeRows(encodeSink, columnBatch);
+        }
+        return flushStats;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        Request request = buildRequest(new RowBinaryRequestBody(pendingBatchList, pendingEncodedList, lastFlushStats));
+        try (Response response = client.newCall(request).execute()) {
+            checkResponse(response);
+        } finally {
+            pendingBatchList.clear();
+            pendingEncodedList.clear();
+        }
+    }
+
+    /**
+     * 以okhttp异步请求发送当前暂存的数据，请求由client的dispatcher执行
+     */
+    @Override
+    public CompletableFuture<FlushStats> flushAsync() {
+        FlushStats flushStats = new FlushStats();
+        Request request = buildRequest(new RowBinaryRequestBody(new ArrayList<>(pendingBatchList), new ArrayList<>(pendingEncodedList), flushStats));
+        pendingBatchList.clear();
+        pendingEncodedList.clear();
+
+        CompletableFuture<FlushStats> future = new CompletableFuture<>();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response res = response) {
+                    checkResponse(res);
+                    future.complete(flushStats);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    private Request buildRequest(RequestBody requestBody) {
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(insertUrl)
+                .post(requestBody)
+                .header("X-ClickHouse-User", user)
+                .header("X-ClickHouse-Key", password);
+        if (compression.getContentEncoding() != null){
+            requestBuilder.header("Content-Encoding", compression.getContentEncoding());
+        }
+        return requestBuilder.build();
+    }
+
+    private void checkResponse(Response response) throws IOException {
+        if (! response.isSuccessful()){
+            throw new IOException("响应失败, code：" + response.code() + ", res body：" + (response.body() != null ? response.body().string() : ""));
+        }
+    }
+
+    @Override
+    public FlushStats getLastFlushStats() {
+        return lastFlushStats;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pendingBatchList.clear();
+        pendingEncodedList.clear();
+    }
+
+    private void encodeRows(BufferedSink encodeSink, ColumnBatch columnBatch) throws IOException {
+        ColumnVector[] columns = columnBatch.getColumns();
+        for (int row = 0; row < columnBatch.getSize(); row++) {
+            for (int i = 0; i < columns.length; i++) {
+                encoders[i].encode(encodeSink, columns[i], row);
+            }
+        }
+    }
+
+    // 获取表中各列类型，key：列名，value：clickhouse类型
+    private Map<String, String> describeTable(HttpUrl baseUrl, String dbName, String tableName) throws IOException {
+        Request request = new Request.Builder()
+                .url(baseUrl.newBuilder()
+                        .addQueryParameter("query", "DESCRIBE TABLE " + dbName + "." + tableName + " FORMAT TabSeparated")
+                        .build())
+                .header("X-ClickHouse-User", user)
+                .header("X-ClickHouse-Key", password)
+                .build();
+
+        try (Response response = client.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            if (! response.isSuccessful()){
+                throw new IOException("describe table失败, code：" + response.code() + ", res body：" + body);
+            }
+
+            // 每行：name \t type \t default_type \t ...
+            Map<String, String> columnTypeMap = new HashMap<>();
+            for (String line : body.split("\n")) {
+                String[] fields = line.split("\t");
+                if (fields.length >= 2){
+                    columnTypeMap.put(fields[0], fields[1]);
+                }
+            }
+            return columnTypeMap;
+        }
+    }
+
+    /**
+     * 请求体，发送时才将暂存数据编码为RowBinary（按需压缩）直接写入连接，
+     * 内存中只保留编码及压缩缓冲区；连接失败重试时会重新编码，
+     * 已编码的数据原样写入
+     */
+    private class RowBinaryRequestBody extends RequestBody {
+        private final List<ColumnBatch> batchList;
+        private final List<EncodedBatch> encodedList;
+        private final FlushStats flushStats;
+
+        private RowBinaryRequestBody(List<ColumnBatch> batchList, List<EncodedBatch> encodedList, FlushStats flushStats) {
+            this.batchList = batchList;
+            this.encodedList = encodedList;
+            this.flushStats = flushStats;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return OCTET_STREAM;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            // 关闭时写出压缩结尾，但不关闭sink，sink由okhttp负责关闭
+            flushStats.reset();
+            for (EncodedBatch encodedBatch : encodedList) {
+                encodedBatch.writeTo(sink, flushStats);
+            }
+            if (batchList.isEmpty()){
+                return;
+            }
+
+            OutputStream out = new CompressingOutputStream(compression, sink.outputStream(), flushStats);
+            try (BufferedSink encodeSink = Okio.buffer(Okio.sink(out))) {
+                for (ColumnBatch columnBatch : batchList) {
+                    encodeRows(encodeSink, columnBatch);
+                }
+            }
+        }
+    }
 }
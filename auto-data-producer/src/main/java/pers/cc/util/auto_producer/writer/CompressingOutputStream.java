@@ -0,0 +1,116 @@
+package pers.cc.util.auto_producer.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 写入请求体的输出流：写入的数据按compression压缩后写入sinkOut，
+ * 同时在FlushStats中累计压缩前后字节数及压缩CPU时间
+ *
+ * 压缩CPU时间 = 调用压缩流的线程CPU时间 - 其中写入sinkOut的线程CPU时间，
+ * 只在每次写入一整块数据时计时，不按字节计时
+ *
+ * 关闭时写出压缩结尾，但不关闭sinkOut（由okhttp负责关闭）
+ *
+ * @date 2026/10/19
+ */
+class CompressingOutputStream extends OutputStream {
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+
+    private final FlushStats flushStats;
+    private final boolean compressed;
+    private final SinkStream sinkStream;
+    private final OutputStream compressStream;
+
+    CompressingOutputStream(Compression compression, OutputStream sinkOut, FlushStats flushStats) throws IOException {
+        this.flushStats = flushStats;
+        this.compressed = compression != Compression.NONE;
+        this.sinkStream = new SinkStream(sinkOut);
+        this.compressStream = compression.wrap(sinkStream);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        flushStats.setRawBytes(flushStats.getRawBytes() + len);
+        if (! compressed){
+            compressStream.write(b, off, len);
+            return;
+        }
+
+        long sinkCpuBefore = sinkStream.cpuNanos;
+        long start = cpuNanos();
+        compressStream.write(b, off, len);
+        long spent = cpuNanos() - start - (sinkStream.cpuNanos - sinkCpuBefore);
+        flushStats.setCompressCpuNanos(flushStats.getCompressCpuNanos() + Math.max(spent, 0));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        compressStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (! compressed){
+            sinkStream.flush();
+            return;
+        }
+
+        // 写出压缩结尾
+        long sinkCpuBefore = sinkStream.cpuNanos;
+        long start = cpuNanos();
+        compressStream.close();
+        long spent = cpuNanos() - start - (sinkStream.cpuNanos - sinkCpuBefore);
+        flushStats.setCompressCpuNanos(flushStats.getCompressCpuNanos() + Math.max(spent, 0));
+    }
+
+    private static long cpuNanos() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    // 压缩后的数据写入sinkOut，累计字节数及写入耗时，关闭时不关闭sinkOut
+    private class SinkStream extends OutputStream {
+        private final OutputStream sinkOut;
+        private long cpuNanos;
+
+        private SinkStream(OutputStream sinkOut) {
+            this.sinkOut = sinkOut;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            flushStats.setCompressedBytes(flushStats.getCompressedBytes() + len);
+            if (! compressed){
+                sinkOut.write(b, off, len);
+                return;
+            }
+
+            long start = cpuNanos();
+            sinkOut.write(b, off, len);
+            cpuNanos += cpuNanos() - start;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            sinkOut.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package pers.cc.util.auto_producer.writer;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * http写入时请求体的压缩方式
+ * @date 2026/10/19
+ */
+public enum Compression {
+    NONE(null, null),
+    GZIP("gzip", "gz"),
+    // lz4 frame格式
+    LZ4("lz4", "lz4"),
+    // doris stream load不支持
+    ZSTD("zstd", null);
+
+    // 对应的http Content-Encoding（clickhouse）
+    private final String contentEncoding;
+
+    // 对应的stream load compress_type（doris）
+    private final String dorisCompressType;
+
+    Compression(String contentEncoding, String dorisCompressType) {
+        this.contentEncoding = contentEncoding;
+        this.dorisCompressType = dorisCompressType;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public String getDorisCompressType() {
+        return dorisCompressType;
+    }
+
+    /**
+     * 包装输出流，写入的数据经压缩后写入out，
+     * 关闭返回的流时写出压缩结尾并关闭out
+     * @param out 压缩后数据的输出流
+     * @return java.io.OutputStream
+     */
+    public OutputStream wrap(OutputStream out) throws IOException {
+        switch (this){
+            case GZIP:
+                return new GZIPOutputStream(out, 64 * 1024);
+            case LZ4:
+                return new LZ4FrameOutputStream(out, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB);
+            case ZSTD:
+                return new ZstdOutputStream(out);
+            default:
+                return out;
+        }
+    }
+
+    /**
+     * 解析配置中的压缩方式，不填时不压缩
+     * @param name 配置值，可选"none","gzip","lz4","zstd"
+     * @return pers.cc.util.auto_producer.writer.Compression
+     */
+    public static Compression parse(String name) {
+        if (name == null || name.isEmpty()){
+            return NONE;
+        }
+        switch (name){
+            case "none":
+                return NONE;
+            case "gzip":
+                return GZIP;
+            case "lz4":
+                return LZ4;
+            case "zstd":
+                return ZSTD;
+            default:
+                throw new IllegalArgumentException("arg compression error, support none,gzip,lz4,zstd");
+        }
+    }
+}
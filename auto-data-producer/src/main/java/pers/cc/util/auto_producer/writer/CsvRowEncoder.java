@@ -0,0 +1,359 @@
+package pers.cc.util.auto_producer.writer;
+
+import pers.cc.util.auto_producer.producer.vector.ColumnBatch;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+import pers.cc.util.auto_producer.producer.vector.DecimalColumnVector;
+import pers.cc.util.auto_producer.producer.vector.FloatColumnVector;
+import pers.cc.util.auto_producer.producer.vector.IntColumnVector;
+import pers.cc.util.auto_producer.producer.vector.StringColumnVector;
+import pers.cc.util.auto_producer.producer.vector.TimestampColumnVector;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * csv字节编码器，直接将各列的值编码为UTF-8字节写入可复用的ByteBuffer，写满后输出到OutputStream，
+ * 不经过String及字符编码
+ *
+ * 格式同commons-csv的CSVFormat.DEFAULT：逗号分隔、“\r\n”换行、null输出为空，
+ * 加引号规则同其QuoteMode.MINIMAL：字符串含逗号、引号、换行，以不大于'#'的字符（如空格、'#'）开头，
+ * 以不大于空格的字符结尾，或为行首的空串时，整体加引号，引号转义为两个引号；
+ * 数值按Integer/Long/BigDecimal/Float的toString格式，时间按Timestamp.toString格式（本地时区）
+ *
+ * 整数按两位一组查表输出；字符串前缀的转义结果、时间中精确到秒的部分按列缓存，各行只输出变化部分，
+ * 低基数字符串列直接输出值池中的字节。
+ *
+ * 非线程安全，每个writer一个
+ *
+ * @date 2026/10/19
+ */
+class CsvRowEncoder {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    // 每个值编码前保证的剩余空间，足够放下任意整数、小数及时间
+    private static final int VALUE_RESERVE = 64;
+
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+    private static final long[] POW10 = new long[19];
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[i * 2] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[i * 2 + 1] = (byte) ('0' + i % 10);
+        }
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private OutputStream out;
+
+    // 按列缓存，下标为列号
+    private ColumnCache[] columnCaches = new ColumnCache[0];
+
+    CsvRowEncoder() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    CsvRowEncoder(int bufferSize) {
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, VALUE_RESERVE * 2));
+    }
+
+    /**
+     * 编码一批列式数据并全部输出到out
+     * @param columnBatch 一批数据
+     * @param out 编码结果的输出流
+     */
+    void encode(ColumnBatch columnBatch, OutputStream out) throws IOException {
+        this.out = out;
+        ColumnVector[] columns = columnBatch.getColumns();
+        ensureColumnCaches(columns.length);
+        for (int row = 0; row < columnBatch.getSize(); row++) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0){
+                    put((byte) ',');
+                }
+                if (! columns[i].getIsNull()[row]){
+                    putValue(columns[i], row, columnCaches[i], i == 0);
+                }
+            }
+            putLineEnd();
+        }
+        drain();
+    }
+
+    /**
+     * 编码行数据并全部输出到out
+     * @param rowList 行数据，值类型为Integer、Float、BigDecimal、Timestamp、String等
+     * @param out 编码结果的输出流
+     */
+    void encode(List<List<Object>> rowList, OutputStream out) throws IOException {
+        this.out = out;
+        for (List<Object> row : rowList) {
+            ensureColumnCaches(row.size());
+            for (int i = 0; i < row.size(); i++) {
+                if (i > 0){
+                    put((byte) ',');
+                }
+                putObject(row.get(i), columnCaches[i], i == 0);
+            }
+            putLineEnd();
+        }
+        drain();
+    }
+
+    private void putValue(ColumnVector column, int row, ColumnCache cache, boolean firstField) throws IOException {
+        if (column instanceof IntColumnVector){
+            ensure(VALUE_RESERVE);
+            putLong(((IntColumnVector) column).getValues()[row]);
+        }else if (column instanceof StringColumnVector){
+            putString((StringColumnVector) column, row, cache);
+        }else if (column instanceof DecimalColumnVector){
+            DecimalColumnVector decimalColumn = (DecimalColumnVector) column;
+            putDecimal(decimalColumn.getUnscaledValues()[row], decimalColumn.getScale());
+        }else if (column instanceof TimestampColumnVector){
+            putTimestamp(((TimestampColumnVector) column).getMillis()[row], cache);
+        }else if (column instanceof FloatColumnVector){
+            putAscii(Float.toString(((FloatColumnVector) column).getValues()[row]));
+        }else {
+            putObject(column.getObject(row), cache, firstField);
+        }
+    }
+
+    private void putObject(Object value, ColumnCache cache, boolean firstField) throws IOException {
+        if (value == null){
+            return;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte){
+            ensure(VALUE_RESERVE);
+            putLong(((Number) value).longValue());
+        }else if (value instanceof Timestamp && ((Timestamp) value).getNanos() % 1000000 == 0){
+            putTimestamp(((Timestamp) value).getTime(), cache);
+        }else if (value instanceof BigDecimal){
+            BigDecimal decimal = (BigDecimal) value;
+            if (decimal.precision() <= 18){
+                putDecimal(decimal.unscaledValue().longValue(), decimal.scale());
+            }else {
+                putAscii(decimal.toString());
+            }
+        }else {
+            String str = value.toString();
+            if (needQuote(str, firstField)){
+                putBytes(quote(str));
+            }else {
+                putBytes(str.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    // 前缀（含转义及起始引号）按列缓存，其后直接输出数值，前缀无需转义且值在值池中时直接输出池中的字节
+    private void putString(StringColumnVector column, int row, ColumnCache cache) throws IOException {
+        if (cache.prefix != column.getPrefix()){
+            cache.prefix = column.getPrefix();
+            cache.prefixQuoted = prefixNeedQuote(cache.prefix);
+            cache.prefixBytes = cache.prefixQuoted
+                    ? ("\"" + cache.prefix.replace("\"", "\"\"")).getBytes(StandardCharsets.UTF_8)
+                    : column.getPrefixBytes();
+        }
+
+        if (! cache.prefixQuoted){
+            byte[] pooledBytes = column.getPooledBytes(row);
+            if (pooledBytes != null){
+                putBytes(pooledBytes);
+                return;
+            }
+        }
+
+        putBytes(cache.prefixBytes);
+        ensure(VALUE_RESERVE);
+        putLong(column.getCodes()[row]);
+        if (cache.prefixQuoted){
+            put((byte) '"');
+        }
+    }
+
+    // 同BigDecimal.toString，scale在[0, 6]内时为普通小数格式，其余情况使用BigDecimal
+    private void putDecimal(long unscaled, int scale) throws IOException {
+        if (scale < 0 || scale > 6 || unscaled == Long.MIN_VALUE){
+            putAscii(BigDecimal.valueOf(unscaled, scale).toString());
+            return;
+        }
+
+        ensure(VALUE_RESERVE);
+        if (unscaled < 0){
+            put((byte) '-');
+            unscaled = -unscaled;
+        }
+        long intPart = unscaled / POW10[scale];
+        putLong(intPart);
+        if (scale > 0){
+            put((byte) '.');
+            putFixedDigits(unscaled - intPart * POW10[scale], scale);
+        }
+    }
+
+    // 同Timestamp.toString：yyyy-mm-dd hh:mm:ss.f，秒以前的部分按列缓存，毫秒去掉末尾的0，为0时输出“.0”
+    private void putTimestamp(long millis, ColumnCache cache) throws IOException {
+        long second = Math.floorDiv(millis, 1000L);
+        if (cache.secondBytes == null || cache.second != second){
+            String str = new Timestamp(second * 1000).toString();
+            cache.second = second;
+            cache.secondBytes = str.substring(0, str.lastIndexOf('.')).getBytes(StandardCharsets.US_ASCII);
+        }
+
+        putBytes(cache.secondBytes);
+        ensure(VALUE_RESERVE);
+        put((byte) '.');
+        int milli = (int) Math.floorMod(millis, 1000L);
+        if (milli == 0){
+            put((byte) '0');
+            return;
+        }
+        int digits = 3;
+        while (milli % 10 == 0){
+            milli /= 10;
+            digits--;
+        }
+        putFixedDigits(milli, digits);
+    }
+
+    // 输出十进制数，调用前需保证剩余空间
+    private void putLong(long value) {
+        if (value < 0){
+            if (value == Long.MIN_VALUE){
+                putAsciiUnchecked("-9223372036854775808");
+                return;
+            }
+            put((byte) '-');
+            value = -value;
+        }
+        putFixedDigits(value, digitCount(value));
+    }
+
+    // 以固定位数输出非负数，不足时高位补0，调用前需保证剩余空间
+    private void putFixedDigits(long value, int digits) {
+        byte[] array = buffer.array();
+        int start = buffer.arrayOffset() + buffer.position();
+        int pos = start + digits;
+        while (pos - start >= 2){
+            int pair = (int) (value % 100);
+            value /= 100;
+            array[--pos] = DIGIT_PAIRS[pair * 2 + 1];
+            array[--pos] = DIGIT_PAIRS[pair * 2];
+        }
+        if (pos > start){
+            array[--pos] = (byte) ('0' + value % 10);
+        }
+        buffer.position(buffer.position() + digits);
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (count < POW10.length && value >= POW10[count]){
+            count++;
+        }
+        return count;
+    }
+
+    private void putLineEnd() throws IOException {
+        ensure(2);
+        buffer.put((byte) '\r').put((byte) '\n');
+    }
+
+    private void put(byte b) {
+        buffer.put(b);
+    }
+
+    private void putAscii(String str) throws IOException {
+        ensure(str.length());
+        putAsciiUnchecked(str);
+    }
+
+    private void putAsciiUnchecked(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            buffer.put((byte) str.charAt(i));
+        }
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        if (bytes.length <= buffer.remaining()){
+            buffer.put(bytes);
+            return;
+        }
+        drain();
+        if (bytes.length <= buffer.remaining()){
+            buffer.put(bytes);
+        }else {
+            out.write(bytes);
+        }
+    }
+
+    // 保证至少有size字节剩余空间，不足时先输出已编码数据
+    private void ensure(int size) throws IOException {
+        if (buffer.remaining() < size){
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (buffer.position() > 0){
+            out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+            buffer.clear();
+        }
+    }
+
+    private void ensureColumnCaches(int columnNum) {
+        if (columnCaches.length < columnNum){
+            ColumnCache[] newCaches = new ColumnCache[columnNum];
+            System.arraycopy(columnCaches, 0, newCaches, 0, columnCaches.length);
+            for (int i = columnCaches.length; i < columnNum; i++) {
+                newCaches[i] = new ColumnCache();
+            }
+            columnCaches = newCaches;
+        }
+    }
+
+    // 同commons-csv的QuoteMode.MINIMAL
+    private static boolean needQuote(String value, boolean firstField) {
+        if (value.isEmpty()){
+            // 行首的空串加引号，否则只有一列时无法与空行区分
+            return firstField;
+        }
+        return value.charAt(0) <= '#' || containsSpecial(value) || value.charAt(value.length() - 1) <= ' ';
+    }
+
+    // 字符串列的值为“前缀 + 数字”，不为空且以数字结尾，只需按前缀判断开头及特殊字符
+    private static boolean prefixNeedQuote(String prefix) {
+        return (! prefix.isEmpty() && prefix.charAt(0) <= '#') || containsSpecial(prefix);
+    }
+
+    private static boolean containsSpecial(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n'){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] quote(String value) {
+        return ("\"" + value.replace("\"", "\"\"") + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class ColumnCache {
+        // 字符串列：前缀及其编码结果，加引号时prefixBytes包含起始引号
+        private String prefix;
+        private boolean prefixQuoted;
+        private byte[] prefixBytes;
+
+        // 时间列：上一次的秒数及“yyyy-mm-dd hh:mm:ss”编码结果
+        private long second;
+        private byte[] secondBytes;
+    }
+}
@@ -3,86 +3,219 @@ package pers.cc.util.auto_producer.writer;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.*;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
+import okio.BufferedSink;
+import pers.cc.util.auto_producer.producer.vector.ColumnBatch;
 
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
+ * 以stream load方式写入doris，
+ * write/writeBatch只暂存数据，flush时由CsvRowEncoder边编码csv边以chunked方式发送，不在内存中拼接完整请求体，
+ * flushAsync时各请求独立持有待发送数据及统计，可同时有多个请求在途
  * @author Chen768959
  * @date 2024/1/17
  */
 public class DorisHttpStreamRecordWriter implements RecordWriter {
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final MediaType TEXT_PLAIN = MediaType.parse("text/plain");
+    private final OkHttpClient client;
     private final String user;
     private final String password;
-    private StringWriter writer;
-    private CSVPrinter csvPrinter;
     private final String url;
+    private final Compression compression;
+    // csv编码器，缓冲区在各次flush间复用，每个在途请求使用一个
+    private final Queue<CsvRowEncoder> csvRowEncoderPool = new ConcurrentLinkedQueue<>();
+    private final FlushStats lastFlushStats = new FlushStats();
 
-    public DorisHttpStreamRecordWriter(String dbName, String tableName, String user, String password, String host, int port) throws IOException {
+    // 待flush的数据
+    private final List<List<Object>> pendingRowList = new ArrayList<>();
+    private final List<ColumnBatch> pendingBatchList = new ArrayList<>();
+    private final List<EncodedBatch> pendingEncodedList = new ArrayList<>();
+
+    /**
+     * @param client 发送请求的client，同一次运行的所有writer共用，由调用方关闭
+     * @param compression 请求体压缩方式，只支持NONE、GZIP、LZ4
+     */
+    public DorisHttpStreamRecordWriter(OkHttpClient client, String dbName, String tableName, String user, String password, String host, int port, Compression compression) {
+        if (compression != Compression.NONE && compression.getDorisCompressType() == null){
+            throw new IllegalArgumentException("doris stream load compression support none,gzip,lz4");
+        }
+        this.client = client;
+        this.compression = compression;
         this.url = "http://"+host+":"+port+"/api/"+dbName+"/"+tableName+"/_stream_load";
         this.user = user;
         this.password = password;
-        initCsvWriter();
     }
 
     @Override
     public void write(List<Object> writableData) throws IOException {
-        this.csvPrinter.printRecord(writableData);
+        this.pendingRowList.add(writableData);
+    }
+
+    /**
+     * 仅暂存columnBatch，flush时才编码发送，因此flush结束前不能修改columnBatch
+     */
+    @Override
+    public void writeBatch(ColumnBatch columnBatch) throws IOException {
+        this.pendingBatchList.add(columnBatch);
+    }
+
+    @Override
+    public void writeEncoded(EncodedBatch encodedBatch) throws IOException {
+        this.pendingEncodedList.add(encodedBatch);
+    }
+
+    @Override
+    public FlushStats encodeBatch(ColumnBatch columnBatch, OutputStream out) throws IOException {
+        FlushStats flushStats = new FlushStats();
+        CsvRowEncoder csvRowEncoder = pollCsvRowEncoder();
+        try (OutputStream compressOut = new CompressingOutputStream(compression, out, flushStats)) {
+            csvRowEncoder.encode(columnBatch, compressOut);
+        } finally {
+            csvRowEncoderPool.offer(csvRowEncoder);
+        }
+        return flushStats;
     }
 
     @Override
     public void flush() throws IOException {
-        try {
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .connectTimeout(600, TimeUnit.SECONDS)
-                    .readTimeout(600, TimeUnit.SECONDS)
-                    .writeTimeout(600, TimeUnit.SECONDS)
-                    .build();
-
-            Request request = new Request.Builder()
-                    .url(url)
-                    .put(RequestBody.create(MediaType.parse("text/plain"), this.writer.toString()))
-                    .header("Authorization", Credentials.basic(user, password))
-                    .header("column_separator", ",")
-                    .build();
-
-            Response response = client.newCall(request).execute();
-
-            if (response.isSuccessful()) {
-                if (response.body() != null){
-                    String body = response.body().string();
-                    JsonNode jsonNode = objectMapper.readTree(body);
-                    if (jsonNode.get("Status") != null && "Success".equals(jsonNode.get("Status").asText())){
-                        return;
-                    }
-                    throw new IOException("响应失败, res body：" + body);
+        Request request = buildRequest(new CsvRequestBody(pendingRowList, pendingBatchList, pendingEncodedList, lastFlushStats));
+        try (Response response = client.newCall(request).execute()) {
+            checkResponse(response);
+        } finally {
+            pendingRowList.clear();
+            pendingBatchList.clear();
+            pendingEncodedList.clear();
+        }
+    }
+
+    /**
+     * 以okhttp异步请求发送当前暂存的数据，请求由client的dispatcher执行
+     */
+    @Override
+    public CompletableFuture<FlushStats> flushAsync() {
+        FlushStats flushStats = new FlushStats();
+        Request request = buildRequest(new CsvRequestBody(new ArrayList<>(pendingRowList), new ArrayList<>(pendingBatchList),
+                new ArrayList<>(pendingEncodedList), flushStats));
+        pendingRowList.clear();
+        pendingBatchList.clear();
+        pendingEncodedList.clear();
+
+        CompletableFuture<FlushStats> future = new CompletableFuture<>();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response res = response) {
+                    checkResponse(res);
+                    future.complete(flushStats);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
                 }
-            }else {
-                throw new IOException("响应失败, code：" + response.code() + ", msg" + response.message());
             }
-        } finally {
-            closeCsvWriter();
-            initCsvWriter();
+        });
+        return future;
+    }
+
+    private Request buildRequest(RequestBody requestBody) {
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(url)
+                .put(requestBody)
+                .header("Authorization", Credentials.basic(user, password))
+                .header("column_separator", ",");
+        if (compression != Compression.NONE){
+            requestBuilder.header("compress_type", compression.getDorisCompressType());
+        }
+        return requestBuilder.build();
+    }
+
+    private void checkResponse(Response response) throws IOException {
+        if (response.isSuccessful()) {
+            if (response.body() != null){
+                String body = response.body().string();
+                JsonNode jsonNode = objectMapper.readTree(body);
+                if (jsonNode.get("Status") != null && "Success".equals(jsonNode.get("Status").asText())){
+                    return;
+                }
+                throw new IOException("响应失败, res body：" + body);
+            }
+        }else {
+            throw new IOException("响应失败, code：" + response.code() + ", msg" + response.message());
         }
     }
 
+    @Override
+    public FlushStats getLastFlushStats() {
+        return lastFlushStats;
+    }
+
     @Override
     public void close() throws IOException {
-        closeCsvWriter();
+        pendingRowList.clear();
+        pendingBatchList.clear();
+        pendingEncodedList.clear();
     }
 
-    private void initCsvWriter() throws IOException {
-        this.writer = new StringWriter();
-        this.csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT);
+    private CsvRowEncoder pollCsvRowEncoder() {
+        CsvRowEncoder csvRowEncoder = csvRowEncoderPool.poll();
+        return csvRowEncoder != null ? csvRowEncoder : new CsvRowEncoder();
     }
 
-    private void closeCsvWriter() throws IOException {
-        this.writer.close();
-        this.csvPrinter.close();
+    /**
+     * 请求体，发送时才将暂存数据编码为csv字节，按需压缩后直接写入连接，
+     * 内存中只保留编码及压缩缓冲区；连接失败重试时会重新编码，
+     * 已编码的数据原样写入
+     */
+    private class CsvRequestBody extends RequestBody {
+        private final List<List<Object>> rowList;
+        private final List<ColumnBatch> batchList;
+        private final List<EncodedBatch> encodedList;
+        private final FlushStats flushStats;
+
+        private CsvRequestBody(List<List<Object>> rowList, List<ColumnBatch> batchList, List<EncodedBatch> encodedList, FlushStats flushStats) {
+            this.rowList = rowList;
+            this.batchList = batchList;
+            this.encodedList = encodedList;
+            this.flushStats = flushStats;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return TEXT_PLAIN;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            // 编码器每写满一个缓冲区即（压缩后）写入sink，sink由okhttp负责关闭
+            flushStats.reset();
+            for (EncodedBatch encodedBatch : encodedList) {
+                encodedBatch.writeTo(sink, flushStats);
+            }
+            if (rowList.isEmpty() && batchList.isEmpty()){
+                return;
+            }
+
+            CsvRowEncoder csvRowEncoder = pollCsvRowEncoder();
+            try (OutputStream out = new CompressingOutputStream(compression, sink.outputStream(), flushStats)) {
+                if (! rowList.isEmpty()){
+                    csvRowEncoder.encode(rowList, out);
+                }
+                for (ColumnBatch columnBatch : batchList) {
+                    csvRowEncoder.encode(columnBatch, out);
+                }
+            } finally {
+                csvRowEncoderPool.offer(csvRowEncoder);
+            }
+        }
     }
 }
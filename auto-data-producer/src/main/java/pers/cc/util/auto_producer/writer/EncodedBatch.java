@@ -0,0 +1,59 @@
+package pers.cc.util.auto_producer.writer;
+
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 已按writer格式编码（及压缩）好的一批数据，如预生成数据缓存中的一段，
+ * 发送时直接将body写入请求，不再编码
+ * @date 2026/10/19
+ */
+public class EncodedBatch {
+    // 每次写入请求的字节数，避免整段复制到okio缓冲区
+    private static final int WRITE_CHUNK_SIZE = 64 * 1024;
+
+    private final ByteBuffer body;
+    private final int rows;
+    private final long rawBytes;
+
+    /**
+     * @param body 请求体，发送时只读取其副本，不改变position
+     * @param rows 行数
+     * @param rawBytes 压缩前字节数
+     */
+    public EncodedBatch(ByteBuffer body, int rows, long rawBytes) {
+        this.body = body;
+        this.rows = rows;
+        this.rawBytes = rawBytes;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    public int getBodySize() {
+        return body.remaining();
+    }
+
+    /**
+     * 写入请求体，并累计统计
+     * @param sink 请求体
+     * @param flushStats 本次请求的统计
+     */
+    void writeTo(BufferedSink sink, FlushStats flushStats) throws IOException {
+        ByteBuffer src = body.duplicate();
+        int end = src.limit();
+        while (src.position() < end){
+            src.limit(Math.min(src.position() + WRITE_CHUNK_SIZE, end));
+            sink.write(src);
+        }
+        flushStats.setRawBytes(flushStats.getRawBytes() + rawBytes);
+        flushStats.setCompressedBytes(flushStats.getCompressedBytes() + getBodySize());
+    }
+}
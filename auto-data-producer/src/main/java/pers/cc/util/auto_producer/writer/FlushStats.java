@@ -0,0 +1,25 @@
+package pers.cc.util.auto_producer.writer;
+
+import lombok.Data;
+
+/**
+ * 一次flush的请求体统计
+ * @date 2026/10/19
+ */
+@Data
+public class FlushStats {
+    // 压缩前字节数
+    private long rawBytes;
+
+    // 实际发送字节数，不压缩时与rawBytes相同
+    private long compressedBytes;
+
+    // 压缩所用的线程CPU时间（纳秒），不含编码及网络写入
+    private long compressCpuNanos;
+
+    void reset() {
+        rawBytes = 0;
+        compressedBytes = 0;
+        compressCpuNanos = 0;
+    }
+}
@@ -1,5 +1,10 @@
 package pers.cc.util.auto_producer.writer;
 
+import pers.cc.util.auto_producer.producer.vector.ColumnBatch;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+import pers.cc.util.auto_producer.producer.vector.FloatColumnVector;
+import pers.cc.util.auto_producer.producer.vector.IntColumnVector;
+
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.*;
@@ -51,6 +56,42 @@ public class JdbcBatchRecordWriter implements RecordWriter{
         }
     }
 
+    @Override
+    public void writeBatch(ColumnBatch columnBatch) throws IOException {
+        ColumnVector[] columns = columnBatch.getColumns();
+        try {
+            for (int row = 0; row < columnBatch.getSize(); row++) {
+                for (int i = 0; i < columns.length; i++) {
+                    ColumnVector column = columns[i];
+                    if (column.getIsNull()[row]){
+                        this.statement.setNull(i+1, dataTypes.get(i));
+                    }else {
+                        switch (dataTypes.get(i)){
+                            case Types.VARCHAR:
+                                this.statement.setString(i + 1, (String) column.getObject(row));
+                                break;
+                            case Types.INTEGER:
+                                this.statement.setInt(i + 1, ((IntColumnVector) column).getValues()[row]);
+                                break;
+                            case Types.FLOAT:
+                                this.statement.setFloat(i + 1, ((FloatColumnVector) column).getValues()[row]);
+                                break;
+                            case Types.DECIMAL:
+                                this.statement.setBigDecimal(i + 1, (BigDecimal) column.getObject(row));
+                                break;
+                            case Types.TIMESTAMP:
+                                this.statement.setTimestamp(i + 1, (Timestamp) column.getObject(row));
+                                break;
+                        }
+                    }
+                }
+                this.statement.addBatch();
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
     @Override
     public void flush() throws IOException {
         try {
@@ -1,8 +1,11 @@
 package pers.cc.util.auto_producer.writer;
 
+import pers.cc.util.auto_producer.producer.vector.ColumnBatch;
+
 import java.io.IOException;
-import java.sql.SQLException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Chen768959
@@ -11,7 +14,65 @@ import java.util.List;
 public interface RecordWriter {
     void write(List<Object> writableData) throws IOException;
 
+    /**
+     * 写入一批列式数据，效果同按行依次write，
+     * 默认实现逐行装箱后调用write，writer可覆盖该方法直接读取各列的原始类型数组，
+     * writer可以只暂存columnBatch到flush时才读取，因此调用方在flush结束前不能修改columnBatch
+     * @param columnBatch 一批数据
+     */
+    default void writeBatch(ColumnBatch columnBatch) throws IOException {
+        for (int row = 0; row < columnBatch.getSize(); row++) {
+            write(columnBatch.getRow(row));
+        }
+    }
+
     void flush() throws IOException;
 
+    /**
+     * 将一批数据按该writer的请求体格式编码（按配置压缩）后写入out，用于预生成数据缓存，
+     * 编码结果可通过writeEncoded发送，out不会被关闭
+     * @param columnBatch 一批数据
+     * @param out 编码结果的输出流
+     * @return pers.cc.util.auto_producer.writer.FlushStats 编码结果的字节数统计
+     */
+    default FlushStats encodeBatch(ColumnBatch columnBatch, OutputStream out) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " not support encodeBatch");
+    }
+
+    /**
+     * 写入encodeBatch编码好的一批数据，同writeBatch只暂存，flush时原样发送，
+     * 一次flush只应包含一个已编码的batch（压缩格式不一定支持拼接）
+     * @param encodedBatch 已编码的数据，flush结束前不能修改
+     */
+    default void writeEncoded(EncodedBatch encodedBatch) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " not support writeEncoded");
+    }
+
+    /**
+     * 异步flush，发出请求后立即返回，可以继续writeBatch并再次flushAsync，同时有多个请求在途，
+     * 返回的future在请求完成后完成，结果为该次请求的请求体统计（不支持统计时为null），
+     * 已提交的columnBatch在future完成前不能修改，
+     * 默认实现同步执行flush
+     * @return java.util.concurrent.CompletableFuture<pers.cc.util.auto_producer.writer.FlushStats>
+     */
+    default CompletableFuture<FlushStats> flushAsync() {
+        CompletableFuture<FlushStats> future = new CompletableFuture<>();
+        try {
+            flush();
+            future.complete(getLastFlushStats());
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 上一次flush的请求体统计（字节数、压缩耗时），不支持统计的writer返回null
+     * @return pers.cc.util.auto_producer.writer.FlushStats
+     */
+    default FlushStats getLastFlushStats() {
+        return null;
+    }
+
     void close() throws IOException;
 }
@@ -0,0 +1,278 @@
+package pers.cc.util.auto_producer.writer;
+
+import okio.BufferedSink;
+import pers.cc.util.auto_producer.producer.vector.ColumnVector;
+import pers.cc.util.auto_producer.producer.vector.DecimalColumnVector;
+import pers.cc.util.auto_producer.producer.vector.FloatColumnVector;
+import pers.cc.util.auto_producer.producer.vector.IntColumnVector;
+import pers.cc.util.auto_producer.producer.vector.StringColumnVector;
+import pers.cc.util.auto_producer.producer.vector.TimestampColumnVector;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+
+/**
+ * 单列的clickhouse RowBinary编码器，
+ * 按生成数据类型（java.sql.Types）及clickhouse列类型在创建时确定编码方式，编码时不再判断类型
+ *
+ * 支持的列类型：
+ * Int：Int8~Int64、UInt8~UInt64、Float32、Float64
+ * Float：Float32、Float64
+ * Decimal：Decimal(P, S)、Decimal32/64/128/256(S)、Float32、Float64
+ * DateTime：DateTime、DateTime64(p)、Date、Date32
+ * String：String
+ * 以上均可包裹Nullable、LowCardinality；
+ * 非Nullable列遇到null值时写入该类型默认值（0或空字符串）
+ *
+ * @date 2026/10/19
+ */
+class RowBinaryColumnEncoder {
+    private static final long[] POW10 = new long[19];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final boolean nullable;
+    // 默认值的字节数，默认值各字节均为0（String为长度0）
+    private final int defaultWidth;
+    private final ValueWriter valueWriter;
+
+    private RowBinaryColumnEncoder(boolean nullable, int defaultWidth, ValueWriter valueWriter) {
+        this.nullable = nullable;
+        this.defaultWidth = defaultWidth;
+        this.valueWriter = valueWriter;
+    }
+
+    void encode(BufferedSink sink, ColumnVector column, int row) throws IOException {
+        boolean isNull = column.getIsNull()[row];
+        if (nullable){
+            sink.writeByte(isNull ? 1 : 0);
+            if (isNull){
+                return;
+            }
+        }else if (isNull){
+            for (int i = 0; i < defaultWidth; i++) {
+                sink.writeByte(0);
+            }
+            return;
+        }
+        valueWriter.write(sink, column, row);
+    }
+
+    /**
+     * @param colName 列名，仅用于报错信息
+     * @param clickhouseType clickhouse列类型，如“Nullable(Int32)”
+     * @param dataType 生成数据类型，java.sql.Types
+     * @return pers.cc.util.auto_producer.writer.RowBinaryColumnEncoder
+     */
+    static RowBinaryColumnEncoder create(String colName, String clickhouseType, int dataType) {
+        String type = clickhouseType.trim();
+        boolean nullable = false;
+        while (true){
+            if (type.startsWith("LowCardinality(")){
+                type = unwrap(type);
+            }else if (type.startsWith("Nullable(")){
+                nullable = true;
+                type = unwrap(type);
+            }else {
+                break;
+            }
+        }
+
+        RowBinaryColumnEncoder encoder = null;
+        switch (dataType){
+            case Types.INTEGER:
+                encoder = createIntEncoder(nullable, type);
+                break;
+            case Types.FLOAT:
+                encoder = createFloatEncoder(nullable, type);
+                break;
+            case Types.DECIMAL:
+                encoder = createDecimalEncoder(nullable, type);
+                break;
+            case Types.TIMESTAMP:
+                encoder = createTimestampEncoder(nullable, type);
+                break;
+            case Types.VARCHAR:
+                if (type.equals("String")){
+                    encoder = new RowBinaryColumnEncoder(nullable, 1, RowBinaryColumnEncoder::writeString);
+                }
+                break;
+        }
+        if (encoder == null){
+            throw new IllegalArgumentException("clickhouse column type not support, col:" + colName + ", type:" + clickhouseType + ", sqlType:" + dataType);
+        }
+        return encoder;
+    }
+
+    private static RowBinaryColumnEncoder createIntEncoder(boolean nullable, String type) {
+        switch (type){
+            case "Int8":
+            case "UInt8":
+                return new RowBinaryColumnEncoder(nullable, 1, (sink, column, row) -> sink.writeByte(((IntColumnVector) column).getValues()[row]));
+            case "Int16":
+            case "UInt16":
+                return new RowBinaryColumnEncoder(nullable, 2, (sink, column, row) -> sink.writeShortLe(((IntColumnVector) column).getValues()[row]));
+            case "Int32":
+            case "UInt32":
+                return new RowBinaryColumnEncoder(nullable, 4, (sink, column, row) -> sink.writeIntLe(((IntColumnVector) column).getValues()[row]));
+            case "Int64":
+            case "UInt64":
+                return new RowBinaryColumnEncoder(nullable, 8, (sink, column, row) -> sink.writeLongLe(((IntColumnVector) column).getValues()[row]));
+            case "Float32":
+                return new RowBinaryColumnEncoder(nullable, 4, (sink, column, row) -> sink.writeIntLe(Float.floatToIntBits(((IntColumnVector) column).getValues()[row])));
+            case "Float64":
+                return new RowBinaryColumnEncoder(nullable, 8, (sink, column, row) -> sink.writeLongLe(Double.doubleToLongBits(((IntColumnVector) column).getValues()[row])));
+            default:
+                return null;
+        }
+    }
+
+    private static RowBinaryColumnEncoder createFloatEncoder(boolean nullable, String type) {
+        switch (type){
+            case "Float32":
+                return new RowBinaryColumnEncoder(nullable, 4, (sink, column, row) -> sink.writeIntLe(Float.floatToIntBits(((FloatColumnVector) column).getValues()[row])));
+            case "Float64":
+                return new RowBinaryColumnEncoder(nullable, 8, (sink, column, row) -> sink.writeLongLe(Double.doubleToLongBits(((FloatColumnVector) column).getValues()[row])));
+            default:
+                return null;
+        }
+    }
+
+    private static RowBinaryColumnEncoder createDecimalEncoder(boolean nullable, String type) {
+        if (type.equals("Float32")){
+            return new RowBinaryColumnEncoder(nullable, 4, (sink, column, row) -> sink.writeIntLe(Float.floatToIntBits((float) toDouble((DecimalColumnVector) column, row))));
+        }
+        if (type.equals("Float64")){
+            return new RowBinaryColumnEncoder(nullable, 8, (sink, column, row) -> sink.writeLongLe(Double.doubleToLongBits(toDouble((DecimalColumnVector) column, row))));
+        }
+
+        // Decimal(P, S)、Decimal32(S)、Decimal64(S)、Decimal128(S)、Decimal256(S)
+        int precision;
+        int scale;
+        if (type.startsWith("Decimal(")){
+            String[] args = unwrap(type).split(",");
+            precision = Integer.parseInt(args[0].trim());
+            scale = args.length > 1 ? Integer.parseInt(args[1].trim()) : 0;
+        }else if (type.startsWith("Decimal32(")){
+            precision = 9;
+            scale = Integer.parseInt(unwrap(type).trim());
+        }else if (type.startsWith("Decimal64(")){
+            precision = 18;
+            scale = Integer.parseInt(unwrap(type).trim());
+        }else if (type.startsWith("Decimal128(")){
+            precision = 38;
+            scale = Integer.parseInt(unwrap(type).trim());
+        }else if (type.startsWith("Decimal256(")){
+            precision = 76;
+            scale = Integer.parseInt(unwrap(type).trim());
+        }else {
+            return null;
+        }
+
+        // 按精度决定字节数，超过8字节时高位按符号扩展
+        int width = precision <= 9 ? 4 : precision <= 18 ? 8 : precision <= 38 ? 16 : 32;
+        return new RowBinaryColumnEncoder(nullable, width, (sink, column, row) -> {
+            long value = rescale((DecimalColumnVector) column, row, scale);
+            if (width == 4){
+                sink.writeIntLe((int) value);
+            }else {
+                sink.writeLongLe(value);
+                for (int i = 8; i < width; i += 8) {
+                    sink.writeLongLe(value < 0 ? -1L : 0L);
+                }
+            }
+        });
+    }
+
+    private static RowBinaryColumnEncoder createTimestampEncoder(boolean nullable, String type) {
+        if (type.equals("DateTime") || type.startsWith("DateTime(")){
+            // UInt32秒数
+            return new RowBinaryColumnEncoder(nullable, 4, (sink, column, row) ->
+                    sink.writeIntLe((int) Math.floorDiv(((TimestampColumnVector) column).getMillis()[row], 1000L)));
+        }
+        if (type.startsWith("DateTime64(")){
+            // Int64，单位为10^-precision秒
+            int precision = Integer.parseInt(unwrap(type).split(",")[0].trim());
+            return new RowBinaryColumnEncoder(nullable, 8, (sink, column, row) -> {
+                long millis = ((TimestampColumnVector) column).getMillis()[row];
+                sink.writeLongLe(precision >= 3 ? millis * POW10[precision - 3] : Math.floorDiv(millis, POW10[3 - precision]));
+            });
+        }
+        if (type.equals("Date")){
+            // UInt16天数
+            return new RowBinaryColumnEncoder(nullable, 2, (sink, column, row) ->
+                    sink.writeShortLe((int) Math.floorDiv(((TimestampColumnVector) column).getMillis()[row], 86400000L)));
+        }
+        if (type.equals("Date32")){
+            // Int32天数
+            return new RowBinaryColumnEncoder(nullable, 4, (sink, column, row) ->
+                    sink.writeIntLe((int) Math.floorDiv(((TimestampColumnVector) column).getMillis()[row], 86400000L)));
+        }
+        return null;
+    }
+
+    // String：varint字节长度 + UTF-8字节，值在值池中时直接写出池中的字节，否则前缀字节各行共用，数值部分直接写出数字
+    private static void writeString(BufferedSink sink, ColumnVector column, int row) throws IOException {
+        StringColumnVector stringColumn = (StringColumnVector) column;
+        byte[] pooledBytes = stringColumn.getPooledBytes(row);
+        if (pooledBytes != null){
+            writeVarInt(sink, pooledBytes.length);
+            sink.write(pooledBytes);
+            return;
+        }
+
+        long code = stringColumn.getCodes()[row];
+        if (code < 0){
+            byte[] bytes = (stringColumn.getPrefix() + code).getBytes(StandardCharsets.UTF_8);
+            writeVarInt(sink, bytes.length);
+            sink.write(bytes);
+            return;
+        }
+
+        byte[] prefixBytes = stringColumn.getPrefixBytes();
+        writeVarInt(sink, prefixBytes.length + digitCount(code));
+        sink.write(prefixBytes);
+        sink.writeDecimalLong(code);
+    }
+
+    private static void writeVarInt(BufferedSink sink, long value) throws IOException {
+        while ((value & ~0x7FL) != 0){
+            sink.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        sink.writeByte((int) value);
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (count < POW10.length && value >= POW10[count]){
+            count++;
+        }
+        return count;
+    }
+
+    private static long rescale(DecimalColumnVector column, int row, int targetScale) {
+        long unscaled = column.getUnscaledValues()[row];
+        int diff = targetScale - column.getScale();
+        return diff >= 0 ? Math.multiplyExact(unscaled, POW10[diff]) : unscaled / POW10[-diff];
+    }
+
+    private static double toDouble(DecimalColumnVector column, int row) {
+        return column.getUnscaledValues()[row] / Math.pow(10, column.getScale());
+    }
+
+    // 去掉最外层的“Xxx(”与“)”
+    private static String unwrap(String type) {
+        return type.substring(type.indexOf('(') + 1, type.lastIndexOf(')'));
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+        void write(BufferedSink sink, ColumnVector column, int row) throws IOException;
+    }
+}
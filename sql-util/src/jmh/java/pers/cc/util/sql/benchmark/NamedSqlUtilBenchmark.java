@@ -0,0 +1,188 @@
+package pers.cc.util.sql.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NamedSqlUtil.namedPrmToPreparedPrm 基准测试
+ * xxxPooled为对应模板使用namedPrmToPreparedPrmPooled的结果
+ *
+ * 打包：mvn -P jmh package
+ * 运行：java -jar target/benchmarks.jar NamedSqlUtilBenchmark -prof gc -rf json -rff target/jmh-result.json
+ * -prof gc 输出每次调用的分配量（gc.alloc.rate.norm），json结果可在不同版本间对比。
+ *
+ * JMH不支持默认包中的基准类，而NamedSqlUtil位于默认包，无法被import，
+ * 因此通过static final的MethodHandle调用，JIT会将其视为常量内联，不影响测量结果。
+ *
+ * @date 2026/10/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NamedSqlUtilBenchmark {
+    private static final MethodHandle NAMED_PRM_TO_PREPARED_PRM = findNamedSqlUtilMethod("namedPrmToPreparedPrm",
+            MethodType.methodType(void.class, String.class, Map.class, StringBuilder.class, List.class));
+    private static final MethodHandle NAMED_PRM_TO_PREPARED_PRM_POOLED = findNamedSqlUtilMethod("namedPrmToPreparedPrmPooled",
+            MethodType.methodType(String.class, String.class, Map.class, List.class));
+
+    // 普通占位符
+    private static final String PLAIN_SQL =
+            "select id, name, age from user where id = #:{id} and status = #:{status} and age > #:{age}";
+
+    // 多层嵌套IF
+    private static final String NESTED_IF_SQL =
+            "select * from user where 1 = 1" +
+            " #{IF=a} and a = #:{a}" +
+            " #{IF=b} and b = #:{b}" +
+            " #{IF=c} and c = #:{c}" +
+            " #{IF=d} and d = #:{d}" +
+            " #{IF=e} and e = #:{e}" +
+            " #{IF=f} and f = #:{f}" +
+            " #{IF=g} and g = #:{g}" +
+            " #{IF=h} and h = #:{h}" +
+            " #{IF=absent} and never = #:{never}}" +
+            "}}}}}}}}";
+
+    // list循环
+    private static final String LIST_SQL =
+            "insert into user (id, name, age) values #{rows:, (#:{id}, #:{name}, #:{age})}";
+
+    // #:{}与#={}混合
+    private static final String MIXED_SQL =
+            "select #={cols} from #={db}.#={table} where tenant = #:{tenant} and name = #:{name}" +
+            " and id in (#{ids:, #:{id}}) order by #={orderBy} limit #={limit}";
+
+    private Map<String, Object> plainParamMap;
+    private Map<String, Object> nestedIfParamMap;
+    private Map<String, Object> mixedParamMap;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        plainParamMap = new HashMap<>();
+        plainParamMap.put("id", 1001);
+        plainParamMap.put("status", "active");
+        plainParamMap.put("age", 18);
+
+        nestedIfParamMap = new HashMap<>();
+        for (char c = 'a'; c <= 'h'; c++) {
+            nestedIfParamMap.put(String.valueOf(c), (int) c);
+        }
+
+        mixedParamMap = new HashMap<>();
+        mixedParamMap.put("cols", "id, name, age, create_time");
+        mixedParamMap.put("db", "test_db");
+        mixedParamMap.put("table", "user");
+        mixedParamMap.put("tenant", 7);
+        mixedParamMap.put("name", "Chen");
+        mixedParamMap.put("orderBy", "create_time desc");
+        mixedParamMap.put("limit", 100);
+        List<Map<String, Object>> ids = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Map<String, Object> idMap = new HashMap<>();
+            idMap.put("id", i);
+            ids.add(idMap);
+        }
+        mixedParamMap.put("ids", ids);
+    }
+
+    @Benchmark
+    public void plain(Blackhole blackhole) throws Throwable {
+        render(PLAIN_SQL, plainParamMap, blackhole);
+    }
+
+    @Benchmark
+    public void nestedIf(Blackhole blackhole) throws Throwable {
+        render(NESTED_IF_SQL, nestedIfParamMap, blackhole);
+    }
+
+    @Benchmark
+    public void list(ListState listState, Blackhole blackhole) throws Throwable {
+        render(LIST_SQL, listState.listParamMap, blackhole);
+    }
+
+    @Benchmark
+    public void mixed(Blackhole blackhole) throws Throwable {
+        render(MIXED_SQL, mixedParamMap, blackhole);
+    }
+
+    @Benchmark
+    public void plainPooled(Blackhole blackhole) throws Throwable {
+        renderPooled(PLAIN_SQL, plainParamMap, blackhole);
+    }
+
+    @Benchmark
+    public void nestedIfPooled(Blackhole blackhole) throws Throwable {
+        renderPooled(NESTED_IF_SQL, nestedIfParamMap, blackhole);
+    }
+
+    @Benchmark
+    public void listPooled(ListState listState, Blackhole blackhole) throws Throwable {
+        renderPooled(LIST_SQL, listState.listParamMap, blackhole);
+    }
+
+    @Benchmark
+    public void mixedPooled(Blackhole blackhole) throws Throwable {
+        renderPooled(MIXED_SQL, mixedParamMap, blackhole);
+    }
+
+    private static void renderPooled(String targetSql, Map<String, Object> paramMap, Blackhole blackhole) throws Throwable {
+        List<Object> resPrmList = new ArrayList<>();
+        String resSql = (String) NAMED_PRM_TO_PREPARED_PRM_POOLED.invokeExact(targetSql, paramMap, resPrmList);
+        blackhole.consume(resSql);
+        blackhole.consume(resPrmList);
+    }
+
+    private static void render(String targetSql, Map<String, Object> paramMap, Blackhole blackhole) throws Throwable {
+        StringBuilder resSql = new StringBuilder();
+        List<Object> resPrmList = new ArrayList<>();
+        NAMED_PRM_TO_PREPARED_PRM.invokeExact(targetSql, paramMap, resSql, resPrmList);
+        blackhole.consume(resSql.toString());
+        blackhole.consume(resPrmList);
+    }
+
+    private static MethodHandle findNamedSqlUtilMethod(String name, MethodType methodType) {
+        try {
+            return MethodHandles.publicLookup().findStatic(Class.forName("NamedSqlUtil"), name, methodType);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("NamedSqlUtil not found", e);
+        }
+    }
+
+    /**
+     * list循环的参数，仅list基准按元素数量参数化
+     */
+    @State(Scope.Thread)
+    public static class ListState {
+        @Param({"10", "1000", "100000"})
+        public int listSize;
+
+        private Map<String, Object> listParamMap;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            List<Map<String, Object>> rows = new ArrayList<>(listSize);
+            for (int i = 0; i < listSize; i++) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", i);
+                row.put("name", "name" + i);
+                row.put("age", i % 100);
+                rows.add(row);
+            }
+
+            listParamMap = new HashMap<>();
+            listParamMap.put("rows", rows);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 多行VALUES批量insert构造器
+ *
+ * 生成 INSERT INTO table (c1, c2) VALUES (?, ?), (?, ?), ... 形式的占位符sql，
+ * 每行数据按列顺序直接绑定到占位符，无需像 #{list:, (...)} 一样每行重新解析一次行模板。
+ *
+ * 每条sql的行数受maxRows与maxBytes（sql文本长度 + 绑定值的估算大小）共同限制，
+ * 因此除最后一条外，各条sql行数通常相同；
+ * maxRows行的sql骨架只生成一次并缓存，每批数据只剩绑定工作；
+ * 其他行数（最后一条或受maxBytes限制的sql）行数各不相同，每次按需生成，不缓存。
+ *
+ * 构造器不可变，可在多线程间共享。
+ *
+ * @date 2026/10/19
+ */
+public class BulkInsertSqlBuilder {
+    // 非字符串类绑定值的估算大小
+    private static final int DEFAULT_VALUE_BYTES = 16;
+
+    private final String insertPrefix;
+    private final String rowPlaceholder;
+    private final int columnNum;
+    private final int maxRows;
+    private final long maxBytes;
+
+    // maxRows行的sql骨架，首次使用时生成
+    private volatile String fullSql;
+
+    /**
+     * @param tableName 表名，可带库名，如“db.table”
+     * @param columnList 列名，每行数据的值按此顺序绑定
+     * @param maxRows 每条sql最多行数，注意驱动的占位符上限（如MySQL/Doris为65535，即maxRows * 列数不能超过65535）
+     * @param maxBytes 每条sql的估算大小上限（sql文本长度 + 绑定值估算大小），如按max_allowed_packet设置，不限制则传Long.MAX_VALUE
+     */
+    public BulkInsertSqlBuilder(String tableName, List<String> columnList, int maxRows, long maxBytes) {
+        if (columnList == null || columnList.isEmpty()){
+            throw  new IllegalArgumentException("BulkInsertError : columnList is empty");
+        }
+        if (maxRows <= 0 || maxBytes <= 0){
+            throw  new IllegalArgumentException("BulkInsertError : maxRows and maxBytes must be positive");
+        }
+
+        this.insertPrefix = "INSERT INTO " + tableName + " (" + String.join(", ", columnList) + ") VALUES ";
+        StringBuilder placeholder = new StringBuilder("(");
+        for (int i = 0; i < columnList.size(); i++) {
+            if (i > 0){
+                placeholder.append(", ");
+            }
+            placeholder.append('?');
+        }
+        this.rowPlaceholder = placeholder.append(')').toString();
+        this.columnNum = columnList.size();
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取指定行数的sql骨架
+     * @param rowNum 行数
+     * @return java.lang.String
+     */
+    public String getSql(int rowNum){
+        if (rowNum != maxRows){
+            return buildSql(rowNum);
+        }
+        String sql = fullSql;
+        if (sql == null){
+            sql = buildSql(maxRows);
+            fullSql = sql;
+        }
+        return sql;
+    }
+
+    private String buildSql(int rowNum){
+        StringBuilder sql = new StringBuilder(insertPrefix.length() + rowNum * (rowPlaceholder.length() + 2));
+        sql.append(insertPrefix);
+        for (int i = 0; i < rowNum; i++) {
+            if (i > 0){
+                sql.append(", ");
+            }
+            sql.append(rowPlaceholder);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 按maxRows、maxBytes将行数据切分为多条insert sql，
+     * 返回的迭代器每次next时才读取下一批行数据
+     * @param rowIterator 行数据，每行为按列顺序排列的值
+     * @return java.util.Iterator<NamedSqlUtil.PreparedSql> 各条sql及其占位符结果集
+     */
+    public Iterator<NamedSqlUtil.PreparedSql> build(Iterator<? extends List<?>> rowIterator){
+        return new Iterator<NamedSqlUtil.PreparedSql>() {
+            // 上一批因超出maxBytes而未放入的行
+            private List<?> pendingRow;
+
+            @Override
+            public boolean hasNext() {
+                return pendingRow != null || rowIterator.hasNext();
+            }
+
+            @Override
+            public NamedSqlUtil.PreparedSql next() {
+                if (! hasNext()){
+                    throw new NoSuchElementException();
+                }
+
+                List<Object> prmList = new ArrayList<>();
+                int rowNum = 0;
+                long bytes = insertPrefix.length();
+                while (rowNum < maxRows && (pendingRow != null || rowIterator.hasNext())){
+                    List<?> row = pendingRow != null ? pendingRow : rowIterator.next();
+                    pendingRow = null;
+                    if (row.size() != columnNum){
+                        throw  new IllegalArgumentException("BulkInsertError : row size " + row.size() + " not match column num " + columnNum);
+                    }
+
+                    long rowBytes = rowPlaceholder.length() + 2;
+                    for (Object value : row) {
+                        rowBytes += estimateBytes(value);
+                    }
+                    // 每条sql至少一行
+                    if (rowNum > 0 && bytes + rowBytes > maxBytes){
+                        pendingRow = row;
+                        break;
+                    }
+
+                    prmList.addAll(row);
+                    bytes += rowBytes;
+                    rowNum++;
+                }
+
+                return new NamedSqlUtil.PreparedSql(getSql(rowNum), prmList);
+            }
+        };
+    }
+
+    /**
+     * 切分并执行全部行数据的insert，
+     * maxRows行的sql只prepare一次并重复使用，其他行数的sql每次prepare、执行后立即关闭，
+     * 同一时间最多持有两个PreparedStatement，均由本方法创建及关闭，
+     * connection的提交与关闭由调用方负责
+     * @param connection 数据库连接
+     * @param rowIterator 行数据，每行为按列顺序排列的值
+     * @return long 总影响行数
+     */
+    public long execute(Connection connection, Iterator<? extends List<?>> rowIterator) throws SQLException {
+        PreparedStatement fullStatement = null;
+        long updateCount = 0;
+        try {
+            Iterator<NamedSqlUtil.PreparedSql> sqlIterator = build(rowIterator);
+            while (sqlIterator.hasNext()){
+                NamedSqlUtil.PreparedSql preparedSql = sqlIterator.next();
+                if (preparedSql.getPrmList().size() == maxRows * columnNum){
+                    if (fullStatement == null){
+                        fullStatement = connection.prepareStatement(preparedSql.getSql());
+                    }
+                    updateCount += executeUpdate(fullStatement, preparedSql.getPrmList());
+                }else {
+                    try (PreparedStatement statement = connection.prepareStatement(preparedSql.getSql())) {
+                        updateCount += executeUpdate(statement, preparedSql.getPrmList());
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException | Error e) {
+            // 关闭失败不覆盖原始异常
+            if (fullStatement != null){
+                try {
+                    fullStatement.close();
+                } catch (SQLException closeException) {
+                    e.addSuppressed(closeException);
+                }
+            }
+            throw e;
+        }
+        if (fullStatement != null){
+            fullStatement.close();
+        }
+        return updateCount;
+    }
+
+    // null值使用setObject(null)绑定，由驱动按列类型处理，不使用Types.NULL（PostgreSQL等驱动对有类型的列会拒绝）
+    private static long executeUpdate(PreparedStatement statement, List<Object> prmList) throws SQLException {
+        for (int i = 0; i < prmList.size(); i++) {
+            statement.setObject(i + 1, prmList.get(i));
+        }
+        return statement.executeUpdate();
+    }
+
+    private static long estimateBytes(Object value){
+        if (value == null){
+            return 4;
+        }else if (value instanceof CharSequence){
+            return ((CharSequence) value).length();
+        }else if (value instanceof byte[]){
+            return ((byte[]) value).length;
+        }
+        return DEFAULT_VALUE_BYTES;
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 具名sql渲染指标
+ *
+ * 开启后（setEnabled(true)），以下入口每次渲染都会按模板（即targetSql）累计：
+ * 渲染次数、渲染耗时（纳秒）、输出sql总长度，以及输出sql的不同形态数（按NamedSqlUtil.fingerprint去重）。
+ * 形态数过多，说明该模板的IF分支、list长度、#={}拼接产生了大量不同的sql，会挤占PreparedStatement缓存，
+ * 可结合list的'+'补齐、分段解析等方式优化。
+ *
+ * 统计入口：
+ * NamedSqlUtil.namedPrmToPreparedPrm(String, Map, StringBuilder, List)（含groupByPreparedSql、executeNamedBatch）、
+ * NamedSqlUtil.namedPrmToPreparedPrmPooled、
+ * NamedSqlTemplate.render(Object, StringBuilder, List)（含render(Object)、renderPooled）；
+ * 写入Appendable的流式渲染不持有完整sql，不做统计。
+ *
+ * 默认关闭，关闭时每次渲染只多一次volatile读。
+ *
+ * @date 2026/10/19
+ */
+public class NamedSqlMetrics {
+    // 每个模板最多记录的不同形态数，超出后只计数不再去重
+    private static final int MAX_TRACKED_SHAPES = 10000;
+
+    private static volatile boolean enabled = false;
+    private static final Map<String, TemplateMetrics> METRICS_MAP = new ConcurrentHashMap<>();
+
+    private NamedSqlMetrics() {}
+
+    public static void setEnabled(boolean enabled) {
+        NamedSqlMetrics.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一次渲染
+     * @param targetSql 模板sql
+     * @param renderNanos 渲染耗时
+     * @param resSql 存放渲染结果的缓冲区
+     * @param start 本次渲染结果在resSql中的起始下标
+     * @return void
+     */
+    static void record(String targetSql, long renderNanos, CharSequence resSql, int start){
+        TemplateMetrics templateMetrics = METRICS_MAP.computeIfAbsent(targetSql, TemplateMetrics::new);
+        templateMetrics.renderCount.increment();
+        templateMetrics.renderNanos.add(renderNanos);
+        templateMetrics.outputChars.add(resSql.length() - start);
+
+        if (templateMetrics.shapeSet.size() < MAX_TRACKED_SHAPES){
+            templateMetrics.shapeSet.add(NamedSqlUtil.fingerprint(resSql.subSequence(start, resSql.length())));
+        }else {
+            templateMetrics.shapeOverflow = true;
+        }
+    }
+
+    /**
+     * 获取各模板指标快照，按渲染总耗时倒序排列
+     * @return java.util.List<NamedSqlMetrics.Snapshot>
+     */
+    public static List<Snapshot> snapshot(){
+        List<Snapshot> snapshotList = new ArrayList<>();
+        for (TemplateMetrics templateMetrics : METRICS_MAP.values()) {
+            snapshotList.add(new Snapshot(
+                    templateMetrics.targetSql,
+                    templateMetrics.renderCount.sum(),
+                    templateMetrics.renderNanos.sum(),
+                    templateMetrics.outputChars.sum(),
+                    templateMetrics.shapeSet.size(),
+                    templateMetrics.shapeOverflow));
+        }
+        snapshotList.sort(Comparator.comparingLong(Snapshot::getRenderNanos).reversed());
+        return snapshotList;
+    }
+
+    // 各模板指标，每个模板一行
+    public static String toReport(){
+        StringBuilder report = new StringBuilder();
+        for (Snapshot snapshot : snapshot()) {
+            report.append(snapshot).append('\n');
+        }
+        return report.toString();
+    }
+
+    public static void reset(){
+        METRICS_MAP.clear();
+    }
+
+    private static class TemplateMetrics {
+        private final String targetSql;
+        private final LongAdder renderCount = new LongAdder();
+        private final LongAdder renderNanos = new LongAdder();
+        private final LongAdder outputChars = new LongAdder();
+        private final Set<String> shapeSet = ConcurrentHashMap.newKeySet();
+        private volatile boolean shapeOverflow;
+
+        private TemplateMetrics(String targetSql) {
+            this.targetSql = targetSql;
+        }
+    }
+
+    /**
+     * 单个模板的指标快照
+     */
+    public static class Snapshot {
+        private final String targetSql;
+        private final long renderCount;
+        private final long renderNanos;
+        private final long outputChars;
+        private final int distinctShapes;
+        private final boolean shapeOverflow;
+
+        private Snapshot(String targetSql, long renderCount, long renderNanos, long outputChars, int distinctShapes, boolean shapeOverflow) {
+            this.targetSql = targetSql;
+            this.renderCount = renderCount;
+            this.renderNanos = renderNanos;
+            this.outputChars = outputChars;
+            this.distinctShapes = distinctShapes;
+            this.shapeOverflow = shapeOverflow;
+        }
+
+        public String getTargetSql() {
+            return targetSql;
+        }
+
+        public String getTemplateFingerprint() {
+            return NamedSqlUtil.fingerprint(targetSql);
+        }
+
+        public long getRenderCount() {
+            return renderCount;
+        }
+
+        public long getRenderNanos() {
+            return renderNanos;
+        }
+
+        public long getOutputChars() {
+            return outputChars;
+        }
+
+        // 不同形态数，shapeOverflow为true时表示已达记录上限，实际形态数更多
+        public int getDistinctShapes() {
+            return distinctShapes;
+        }
+
+        public boolean isShapeOverflow() {
+            return shapeOverflow;
+        }
+
+        @Override
+        public String toString() {
+            return "template(" + getTemplateFingerprint() + ") " +
+                    "渲染次数(" + renderCount + ")，" +
+                    "渲染总耗时(" + renderNanos / 1000 + ")微秒，" +
+                    "平均耗时(" + (renderCount == 0 ? 0 : renderNanos / renderCount) + ")纳秒，" +
+                    "平均输出长度(" + (renderCount == 0 ? 0 : outputChars / renderCount) + ")，" +
+                    "sql形态数(" + distinctShapes + (shapeOverflow ? "+" : "") + ")，" +
+                    "sql：" + abbreviate(targetSql);
+        }
+
+        private static String abbreviate(String sql){
+            String oneLine = sql.replaceAll("\\s+", " ").trim();
+            return oneLine.length() <= 120 ? oneLine : oneLine.substring(0, 117) + "...";
+        }
+    }
+}
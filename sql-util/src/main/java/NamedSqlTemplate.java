@@ -0,0 +1,552 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的具名参数sql
+ *
+ * 关键字规则同NamedSqlUtil.namedPrmToPreparedPrm，解析结果与其一致，区别在于：
+ * 1、sql只在compile时解析一次，语法错误（如缺少'}'）在compile时即抛出，render时不再扫描sql；
+ * 2、每个key在compile时分配槽位下标（顶层及每个list循环体各自一套），
+ *    参数源按“模板作用域 + 参数源Class”只解析一次取值方法，render时按下标读取MethodHandle数组取值，不再按key做HashMap查找；
+ * 3、参数源除Map外，也可以是POJO或record，list中的每一项同理，无需为每次调用、每个list项构造Map。
+ *
+ * POJO取值方法查找顺序（key为strKey）：getKey()、isKey()、key()（record访问器）、public字段key；
+ * 均不存在时视为null（IF不成立，#:{}、#={}报错）。
+ *
+ * 编译后的模板不可变，可在多线程间共享。
+ *
+ * 例：
+ * NamedSqlTemplate template = NamedSqlTemplate.compile("select * from user where id in (#{ids:, #:{id}}) #{IF=name} and name = #:{name}}");
+ * template.render(userQuery, resSql, resPrmList); // userQuery为POJO，ids为List<IdHolder>
+ *
+ * @date 2026/10/19
+ */
+public class NamedSqlTemplate {
+    private static final MethodHandle MAP_GET;
+    private static final MethodHandle NULL_ACCESSOR = MethodHandles.dropArguments(
+            MethodHandles.constant(Object.class, null), 0, Object.class);
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    // renderPooled复用的线程内sql缓冲区，超过该容量的缓冲区用完即丢弃，避免长期占用内存
+    private static final int MAX_POOLED_BUFFER_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> POOLED_SQL_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    static {
+        try {
+            MAP_GET = MethodHandles.publicLookup().findVirtual(Map.class, "get", MethodType.methodType(Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String targetSql;
+    private final Scope rootScope;
+    private final Node[] nodes;
+
+    private NamedSqlTemplate(String targetSql, Scope rootScope, Node[] nodes) {
+        this.targetSql = targetSql;
+        this.rootScope = rootScope;
+        this.nodes = nodes;
+    }
+
+    /**
+     * 解析具名参数sql，生成可重复使用的模板
+     * @param targetSql 含有具名参数sql
+     * @return NamedSqlTemplate
+     */
+    public static NamedSqlTemplate compile(String targetSql){
+        Scope rootScope = new Scope();
+        Node[] nodes = new Parser(targetSql).parseNodes(rootScope, false);
+        return new NamedSqlTemplate(targetSql, rootScope, nodes);
+    }
+
+    /**
+     * 以paramSource为参数源，将模板转换成占位符写法的sql
+     * @param paramSource 参数源，Map或POJO
+     * @param resSql 写入转换结果sql
+     * @param resPrmList 存放sql对应的占位符结果集，可为null
+     * @return void
+     */
+    public void render(Object paramSource, Appendable resSql, List<Object> resPrmList) throws IOException {
+        if (paramSource == null){
+            throw  new IllegalArgumentException("NamedSqlError : render error, paramSource is null");
+        }
+        renderNodes(nodes, paramSource, rootScope.accessors(paramSource.getClass()), resSql, resPrmList);
+    }
+
+    public void render(Object paramSource, StringBuilder resSql, List<Object> resPrmList){
+        boolean metricsEnabled = NamedSqlMetrics.isEnabled();
+        long startTime = metricsEnabled ? System.nanoTime() : 0;
+        int start = resSql.length();
+        try {
+            render(paramSource, (Appendable) resSql, resPrmList);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IOException
+            throw new UncheckedIOException(e);
+        }
+        if (metricsEnabled){
+            NamedSqlMetrics.record(targetSql, System.nanoTime() - startTime, resSql, start);
+        }
+    }
+
+    // 无需生成占位符结果集时，可调用此方法
+    public String render(Object paramSource){
+        StringBuilder resSql = new StringBuilder();
+        render(paramSource, resSql, null);
+        return resSql.toString();
+    }
+
+    /**
+     * 使用当前线程复用的缓冲区渲染，
+     * 模板已预编译，渲染时不扫描sql、不构造key，缓冲区在线程内复用，
+     * 稳态下除返回的String及resPrmList中的参数外不产生其他分配（Map参数源、非CharSequence的#={}值除外）
+     * @param paramSource 参数源，Map或POJO
+     * @param resPrmList 存放sql对应的占位符结果集，可为null
+     * @return java.lang.String 转换结果sql
+     */
+    public String renderPooled(Object paramSource, List<Object> resPrmList){
+        StringBuilder resSql = POOLED_SQL_BUFFER.get();
+        resSql.setLength(0);
+        try {
+            render(paramSource, resSql, resPrmList);
+            return resSql.toString();
+        } finally {
+            if (resSql.capacity() > MAX_POOLED_BUFFER_CAPACITY){
+                POOLED_SQL_BUFFER.remove();
+            }
+        }
+    }
+
+    public String getTargetSql() {
+        return targetSql;
+    }
+
+    private static void renderNodes(Node[] nodes, Object paramSource, MethodHandle[] accessors, Appendable resSql, List<Object> resPrmList) throws IOException {
+        for (Node node : nodes) {
+            node.render(paramSource, accessors, resSql, resPrmList);
+        }
+    }
+
+    private static Object getValue(MethodHandle[] accessors, int slot, Object paramSource){
+        try {
+            return (Object) accessors[slot].invokeExact(paramSource);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("NamedSqlError : read param error", e);
+        }
+    }
+
+    /**
+     * 解析出key在指定参数源Class上的取值方法，统一转换为(Object)Object类型
+     * @param type 参数源Class
+     * @param key strKey
+     * @return java.lang.invoke.MethodHandle
+     */
+    private static MethodHandle resolveAccessor(Class<?> type, String key){
+        if (Map.class.isAssignableFrom(type)){
+            return MethodHandles.insertArguments(MAP_GET, 1, key).asType(ACCESSOR_TYPE);
+        }
+
+        try {
+            String capitalKey = Character.toUpperCase(key.charAt(0)) + key.substring(1);
+            for (String methodName : new String[]{"get" + capitalKey, "is" + capitalKey, key}) {
+                Method method = findGetter(type, methodName);
+                if (method != null){
+                    method.setAccessible(true);
+                    return MethodHandles.lookup().unreflect(method).asType(ACCESSOR_TYPE);
+                }
+            }
+
+            Field field = type.getField(key);
+            if (! Modifier.isStatic(field.getModifiers())){
+                field.setAccessible(true);
+                return MethodHandles.lookup().unreflectGetter(field).asType(ACCESSOR_TYPE);
+            }
+        } catch (NoSuchFieldException e) {
+            // 无此字段，视为null
+        } catch (IllegalAccessException e) {
+            throw  new IllegalArgumentException("NamedSqlError : param accessor not accessible, class=" + type.getName() + ", strKey=" + key, e);
+        }
+
+        return NULL_ACCESSOR;
+    }
+
+    private static Method findGetter(Class<?> type, String methodName){
+        try {
+            Method method = type.getMethod(methodName);
+            if (! Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class){
+                return method;
+            }
+        } catch (NoSuchMethodException e) {
+            // 继续查找下一种写法
+        }
+        return null;
+    }
+
+    /**
+     * 参数作用域，顶层及每个list循环体各一个，
+     * compile时为作用域内每个不同的key分配槽位下标，
+     * render时按参数源Class缓存各槽位的取值方法
+     */
+    private static class Scope {
+        private final List<String> keys = new ArrayList<>();
+        private final ClassValue<MethodHandle[]> accessorCache = new ClassValue<MethodHandle[]>() {
+            @Override
+            protected MethodHandle[] computeValue(Class<?> type) {
+                MethodHandle[] accessors = new MethodHandle[keys.size()];
+                for (int i = 0; i < accessors.length; i++) {
+                    accessors[i] = resolveAccessor(type, keys.get(i));
+                }
+                return accessors;
+            }
+        };
+
+        private int slotOf(String key){
+            int slot = keys.indexOf(key);
+            if (slot < 0){
+                keys.add(key);
+                slot = keys.size() - 1;
+            }
+            return slot;
+        }
+
+        private MethodHandle[] accessors(Class<?> type){
+            return accessorCache.get(type);
+        }
+    }
+
+    private abstract static class Node {
+        abstract void render(Object paramSource, MethodHandle[] accessors, Appendable resSql, List<Object> resPrmList) throws IOException;
+    }
+
+    // 普通sql内容
+    private static class TextNode extends Node {
+        private final String text;
+
+        private TextNode(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void render(Object paramSource, MethodHandle[] accessors, Appendable resSql, List<Object> resPrmList) throws IOException {
+            resSql.append(text);
+        }
+    }
+
+    // #={strKey}
+    private static class ReplaceNode extends Node {
+        private final int slot;
+        private final String key;
+
+        private ReplaceNode(int slot, String key) {
+            this.slot = slot;
+            this.key = key;
+        }
+
+        @Override
+        void render(Object paramSource, MethodHandle[] accessors, Appendable resSql, List<Object> resPrmList) throws IOException {
+            Object resValue = getValue(accessors, slot, paramSource);
+            if (resValue == null){
+                throw  new IllegalArgumentException("NamedSqlError : analyseReplaceLogic error, strKey not found, strKey=" + key);
+            }
+
+            if (resValue instanceof CharSequence){
+                resSql.append((CharSequence) resValue);
+            }else {
+                resSql.append(String.valueOf(resValue));
+            }
+        }
+    }
+
+    // #:{strKey}
+    private static class PlaceholderNode extends Node {
+        private final int slot;
+        private final String key;
+
+        private PlaceholderNode(int slot, String key) {
+            this.slot = slot;
+            this.key = key;
+        }
+
+        @Override
+        void render(Object paramSource, MethodHandle[] accessors, Appendable resSql, List<Object> resPrmList) throws IOException {
+            Object resValue = getValue(accessors, slot, paramSource);
+            if (resValue == null){
+                throw  new IllegalArgumentException("NamedSqlError : analysePlaceholderLogic error, strKey not found, strKey=" + key);
+            }
+
+            resSql.append('?');
+            if (resPrmList != null){
+                resPrmList.add(resValue);
+            }
+        }
+    }
+
+    // #{IF=strKey 待解析逻辑}
+    private static class IfNode extends Node {
+        private final int slot;
+        private final Node[] body;
+
+        private IfNode(int slot, Node[] body) {
+            this.slot = slot;
+            this.body = body;
+        }
+
+        @Override
+        void render(Object paramSource, MethodHandle[] accessors, Appendable resSql, List<Object> resPrmList) throws IOException {
+            if (getValue(accessors, slot, paramSource) != null){
+                renderNodes(body, paramSource, accessors, resSql, resPrmList);
+            }
+        }
+    }
+
+    // #{listName:type 待循环逻辑}
+    private static class ListNode extends Node {
+        private final int slot;
+        private final String key;
+        private final boolean bucketPad;
+        private final String intervalStr;
+        private final Scope bodyScope;
+        private final Node[] body;
+
+        private ListNode(int slot, String key, boolean bucketPad, String intervalStr, Scope bodyScope, Node[] body) {
+            this.slot = slot;
+            this.key = key;
+            this.bucketPad = bucketPad;
+            this.intervalStr = intervalStr;
+            this.bodyScope = bodyScope;
+            this.body = body;
+        }
+
+        @Override
+        void render(Object paramSource, MethodHandle[] accessors, Appendable resSql, List<Object> resPrmList) throws IOException {
+            Object listObj = getValue(accessors, slot, paramSource);
+            if (listObj == null){
+                throw  new IllegalArgumentException("NamedSqlError : analyseListLogic error, listKey not found, listKey=" + key);
+            }else if (! (listObj instanceof List)){
+                throw  new IllegalArgumentException("NamedSqlError : analyseListLogic error, listKey value not is list, listKey=" + key);
+            }
+
+            List<?> loopParamList = (List<?>) listObj;
+            if (bucketPad){
+                loopParamList = NamedSqlUtil.padToBucket(loopParamList);
+            }
+
+            // list中各项通常为同一Class，仅在Class变化时重新获取取值方法
+            Class<?> itemType = null;
+            MethodHandle[] itemAccessors = null;
+            for (int i = 0; i < loopParamList.size(); i++) {
+                Object item = loopParamList.get(i);
+                if (item == null){
+                    throw  new IllegalArgumentException("NamedSqlError : analyseListLogic error, list item is null, listKey=" + key);
+                }
+                if (item.getClass() != itemType){
+                    itemType = item.getClass();
+                    itemAccessors = bodyScope.accessors(itemType);
+                }
+
+                if (i > 0){
+                    resSql.append(intervalStr);
+                }
+                renderNodes(body, item, itemAccessors, resSql, resPrmList);
+                resSql.append(' ');
+            }
+        }
+    }
+
+    /**
+     * 将具名参数sql解析为Node，
+     * 判定规则与NamedSqlUtil的逐字符解析保持一致
+     */
+    private static class Parser {
+        private final String sql;
+        private int pos = 0;
+
+        private Parser(String sql) {
+            this.sql = sql;
+        }
+
+        /**
+         * 解析至末尾，或inIf时解析至if的结束'}'（并越过该'}'）
+         */
+        private Node[] parseNodes(Scope scope, boolean inIf){
+            List<Node> nodes = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            int loopNum = 0;
+
+            while (pos < sql.length()){
+                parseSpecials(scope, nodes, text);
+                if (pos >= sql.length()){
+                    break;
+                }
+
+                char c = sql.charAt(pos);
+                if (inIf){
+                    if (c == '{'){
+                        loopNum++;
+                    }else if (c == '}'){
+                        if (loopNum <= 0){
+                            pos++; // 跳出if，且将下标移向if后一位
+                            flushText(nodes, text);
+                            return nodes.toArray(new Node[0]);
+                        }else {
+                            loopNum--;
+                        }
+                    }
+                }
+
+                text.append(c);
+                pos++;
+            }
+
+            if (inIf){
+                throw  new IllegalArgumentException("NamedSqlError : targetSql IF not closed with '}'");
+            }
+            flushText(nodes, text);
+            return nodes.toArray(new Node[0]);
+        }
+
+        /**
+         * 连续解析当前位置的特殊关键字，
+         * '#'后不满足任何关键字时，已读取的'#'等字符被丢弃（与NamedSqlUtil一致）
+         */
+        private void parseSpecials(Scope scope, List<Node> nodes, StringBuilder text){
+            while (pos < sql.length() && sql.charAt(pos) == '#'){
+                pos++;
+                if (match("{")){
+                    flushText(nodes, text);
+                    if (match("IF=")){ // 满足if条件
+                        String strKey = parseKey();
+                        nodes.add(new IfNode(scope.slotOf(strKey), parseNodes(scope, true)));
+                    }else { // 满足list条件
+                        nodes.add(parseList(scope));
+                    }
+                    continue;
+                }
+                if (match(":")){ // 满足占位符替换条件
+                    if (match("{")){
+                        flushText(nodes, text);
+                        String strKey = parseKey();
+                        nodes.add(new PlaceholderNode(scope.slotOf(strKey), strKey));
+                        continue;
+                    }
+                }
+                if (match("=")){ // 满足字符串替换条件
+                    if (match("{")){
+                        flushText(nodes, text);
+                        String strKey = parseKey();
+                        nodes.add(new ReplaceNode(scope.slotOf(strKey), strKey));
+                        continue;
+                    }
+                }
+                return;
+            }
+        }
+
+        /**
+         * 解析list条件，当前下标指向'#{'后一位
+         */
+        private Node parseList(Scope scope){
+            int colon = sql.indexOf(':', pos);
+            if (colon < 0){
+                throw  new IllegalArgumentException("NamedSqlError : targetSql listKey not found ':'");
+            }
+            String listKey = sql.substring(pos, colon);
+            pos = colon + 1;
+
+            // listKey以'+'结尾，则循环次数按桶补齐
+            boolean bucketPad = listKey.endsWith("+");
+            if (bucketPad){
+                listKey = listKey.substring(0, listKey.length() - 1);
+            }
+            if (listKey.isEmpty()){
+                throw  new IllegalArgumentException("NamedSqlError : targetSql listKey is empty");
+            }
+
+            // 解析间隔符
+            int intervalStart = pos;
+            while (pos < sql.length() && ! Character.isSpaceChar(sql.charAt(pos))){
+                pos++;
+            }
+            String intervalStr = sql.substring(intervalStart, pos);
+
+            // 解析循环体（保留原生内容，含间隔符后的空格）
+            int loopStart = pos;
+            int loopNum = 0;
+            while (true){
+                if (pos >= sql.length()){
+                    throw  new IllegalArgumentException("NamedSqlError : targetSql list not closed with '}', listKey=" + listKey);
+                }
+                char c = sql.charAt(pos);
+                if (c == '{'){
+                    loopNum++;
+                }else if (c == '}'){
+                    if (loopNum <= 0){
+                        break;
+                    }
+                    loopNum--;
+                }
+                pos++;
+            }
+            String loopStr = sql.substring(loopStart, pos);
+            pos++; // 跳出list，且将下标移向list后一位
+
+            Scope bodyScope = new Scope();
+            Node[] body = new Parser(loopStr).parseNodes(bodyScope, false);
+            return new ListNode(scope.slotOf(listKey), listKey, bucketPad, intervalStr, bodyScope, body);
+        }
+
+        /**
+         * 从当前下标读取strKey直到'}'，并越过'}'，strKey不能为空
+         */
+        private String parseKey(){
+            int start = pos;
+            while (pos < sql.length()){
+                char c = sql.charAt(pos);
+                if (! (Character.isLowerCase(c) || Character.isUpperCase(c) || Character.isDigit(c))){
+                    break;
+                }
+                pos++;
+            }
+            String strKey = sql.substring(start, pos);
+
+            if (pos < sql.length() && sql.charAt(pos) == '}'){
+                pos++;
+            }else {
+                throw  new IllegalArgumentException("NamedSqlError : targetSql strKey not found '}', strKey is " + strKey);
+            }
+            if (strKey.isEmpty()){
+                throw  new IllegalArgumentException("NamedSqlError : targetSql strKey is empty");
+            }
+            return strKey;
+        }
+
+        /**
+         * 当前位置满足指定字符串则越过，否则不移动
+         */
+        private boolean match(String target){
+            if (sql.startsWith(target, pos)){
+                pos += target.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void flushText(List<Node> nodes, StringBuilder text){
+            if (text.length() > 0){
+                nodes.add(new TextNode(text.toString()));
+                text.setLength(0);
+            }
+        }
+    }
+}
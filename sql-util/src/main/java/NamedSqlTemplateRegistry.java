@@ -0,0 +1,212 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 具名sql模板注册中心
+ *
+ * 加载目录下所有“.sql”文件，每个文件为一个具名sql模板，
+ * 模板id为文件相对目录的路径去掉后缀，路径分隔符统一为'/'，如“user/findById.sql”的id为“user/findById”；
+ * 文件内容按UTF-8读取并去除首尾空白。
+ *
+ * 加载时并行编译所有模板（NamedSqlTemplate.compile），任一模板语法错误则整体加载失败，并报告所有出错的模板，
+ * 使sql语法问题在启动时暴露，请求线程通过get获取已编译的模板，不再解析sql。
+ *
+ * reload只重新编译新增及修改过（修改时间或大小变化）的文件，
+ * 全部编译成功后才一次性替换模板集合，否则保留原模板集合不变，
+ * 因此get要么拿到reload前的模板，要么拿到reload后的模板，不会拿到编译一半的结果。
+ *
+ * @date 2026/10/19
+ */
+public class NamedSqlTemplateRegistry implements Closeable {
+    private static final String TEMPLATE_SUFFIX = ".sql";
+
+    private final Path templateDir;
+
+    // 每次reload整体替换，读取时无需加锁
+    private volatile Map<String, TemplateFile> templateMap = Collections.emptyMap();
+
+    private ScheduledExecutorService reloadExecutorService;
+
+    public NamedSqlTemplateRegistry(Path templateDir) {
+        this.templateDir = templateDir;
+    }
+
+    /**
+     * 创建注册中心并加载目录下所有模板
+     * @param templateDir 模板目录
+     * @return NamedSqlTemplateRegistry
+     */
+    public static NamedSqlTemplateRegistry load(Path templateDir) throws IOException {
+        NamedSqlTemplateRegistry registry = new NamedSqlTemplateRegistry(templateDir);
+        registry.reload();
+        return registry;
+    }
+
+    /**
+     * 根据id获取已编译的模板
+     * @param id 模板id
+     * @return NamedSqlTemplate
+     */
+    public NamedSqlTemplate get(String id){
+        TemplateFile templateFile = templateMap.get(id);
+        if (templateFile == null){
+            throw  new IllegalArgumentException("NamedSqlError : template not found, id=" + id);
+        }
+        return templateFile.template;
+    }
+
+    public Set<String> ids(){
+        return templateMap.keySet();
+    }
+
+    /**
+     * 重新扫描模板目录，编译新增及修改过的模板，并移除已删除的模板
+     * @return boolean 模板集合是否发生变化
+     */
+    public synchronized boolean reload() throws IOException {
+        Map<String, TemplateFile> oldTemplateMap = this.templateMap;
+        Map<String, Path> pathMap = scanTemplatePath();
+
+        // 需要重新编译的模板
+        List<String> changedIdList = new ArrayList<>();
+        Map<String, BasicFileAttributes> attributesMap = new HashMap<>();
+        for (Map.Entry<String, Path> entry : pathMap.entrySet()) {
+            BasicFileAttributes attributes = Files.readAttributes(entry.getValue(), BasicFileAttributes.class);
+            attributesMap.put(entry.getKey(), attributes);
+
+            TemplateFile oldTemplateFile = oldTemplateMap.get(entry.getKey());
+            if (oldTemplateFile == null
+                    || ! oldTemplateFile.lastModifiedTime.equals(attributes.lastModifiedTime())
+                    || oldTemplateFile.size != attributes.size()){
+                changedIdList.add(entry.getKey());
+            }
+        }
+
+        if (changedIdList.isEmpty() && oldTemplateMap.keySet().equals(pathMap.keySet())){
+            return false;
+        }
+
+        // 并行编译
+        Map<String, String> errorMap = new ConcurrentHashMap<>();
+        Map<String, TemplateFile> compiledMap;
+        try {
+            compiledMap = changedIdList.parallelStream()
+                    .map(id -> {
+                        try {
+                            return compileFile(id, pathMap.get(id), attributesMap.get(id));
+                        } catch (IllegalArgumentException e) {
+                            errorMap.put(id, e.getMessage());
+                            return null;
+                        }
+                    })
+                    .filter(templateFile -> templateFile != null)
+                    .collect(Collectors.toMap(templateFile -> templateFile.id, templateFile -> templateFile));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (! errorMap.isEmpty()){
+            throw  new IllegalArgumentException("NamedSqlError : template compile error, " + new TreeMap<>(errorMap));
+        }
+
+        Map<String, TemplateFile> newTemplateMap = new HashMap<>();
+        for (String id : pathMap.keySet()) {
+            TemplateFile templateFile = compiledMap.get(id);
+            newTemplateMap.put(id, templateFile != null ? templateFile : oldTemplateMap.get(id));
+        }
+        this.templateMap = Collections.unmodifiableMap(newTemplateMap);
+        return true;
+    }
+
+    /**
+     * 定时reload，
+     * reload失败（如模板语法错误）时保留原模板集合，并将异常交给errorHandler
+     * @param intervalMillis reload间隔毫秒数
+     * @param errorHandler reload异常处理
+     * @return void
+     */
+    public synchronized void startAutoReload(long intervalMillis, Consumer<Exception> errorHandler){
+        if (reloadExecutorService != null){
+            throw  new IllegalStateException("NamedSqlError : auto reload already started");
+        }
+
+        reloadExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "named-sql-template-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloadExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (Exception e) {
+                errorHandler.accept(e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reloadExecutorService != null){
+            reloadExecutorService.shutdownNow();
+            reloadExecutorService = null;
+        }
+    }
+
+    private Map<String, Path> scanTemplatePath() throws IOException {
+        try (Stream<Path> pathStream = Files.walk(templateDir)) {
+            return pathStream
+                    .filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(TEMPLATE_SUFFIX))
+                    .collect(Collectors.toMap(this::toTemplateId, path -> path));
+        }
+    }
+
+    private String toTemplateId(Path path){
+        String relativePath = templateDir.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+        return relativePath.substring(0, relativePath.length() - TEMPLATE_SUFFIX.length());
+    }
+
+    private static TemplateFile compileFile(String id, Path path, BasicFileAttributes attributes){
+        String targetSql;
+        try {
+            targetSql = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new TemplateFile(id, NamedSqlTemplate.compile(targetSql), attributes.lastModifiedTime(), attributes.size());
+    }
+
+    private static class TemplateFile {
+        private final String id;
+        private final NamedSqlTemplate template;
+        private final FileTime lastModifiedTime;
+        private final long size;
+
+        private TemplateFile(String id, NamedSqlTemplate template, FileTime lastModifiedTime, long size) {
+            this.id = id;
+            this.template = template;
+            this.lastModifiedTime = lastModifiedTime;
+            this.size = size;
+        }
+    }
+}
@@ -1,14 +1,33 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.text.StringCharacterIterator;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @author Chen768959
  * @date 2023/7/13
  */
 public class NamedSqlUtil {
+    // namedPrmToPreparedPrmPooled缓存的已编译模板数上限，超出后不再缓存新模板
+    private static final int MAX_CACHED_TEMPLATE_NUM = 1024;
+    private static final Map<String, NamedSqlTemplate> TEMPLATE_CACHE = new ConcurrentHashMap<>();
+
     /**
      * 将具名参数写法的sql，转换成占位符写法
      *
@@ -42,6 +61,16 @@ public class NamedSqlUtil {
      * 例：select * from table where #{aList:or (name = #:name and year = #:year)}
      * 解析后：select * from table where (name = ? and year = ?) or (name = ? and year = ?) or (name = ? and year = ?)
      *
+     * 5、list循环按桶补齐
+     * #{listName+:type 待循环逻辑}
+     * listName后加'+'，循环次数会补齐到“不小于list长度的最小2的幂”，补齐部分重复使用list中最后一个map；
+     * 如list长度为5、6、7、8时，均循环8次，
+     * 使不同长度的list产生的sql种类数仅为长度的对数级，便于命中服务端及驱动端的PreparedStatement缓存；
+     * 仅适用于重复项不影响语义的场景，如 in (...)、or 条件。
+     *
+     * 例：select * from table where id in (#{idList+:, #:{id}})
+     * idList长度为3时，解析后：select * from table where id in ( ? , ? , ? , ? )，第4个占位符的值与第3个相同
+     *
      * @param targetSql 含有具名参数sql
      * @param paramMap 参数map
      * @param resSql 存放转换结果sql
@@ -54,18 +83,67 @@ public class NamedSqlUtil {
      * @return void
      */
     public static void namedPrmToPreparedPrm(String targetSql, Map<String,Object> paramMap, StringBuilder resSql, List<Object> resPrmList){
+        boolean metricsEnabled = NamedSqlMetrics.isEnabled();
+        long startTime = metricsEnabled ? System.nanoTime() : 0;
+        int start = resSql.length();
+        try {
+            namedPrmToPreparedPrm(targetSql, paramMap, (Appendable) resSql, resPrmList);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IOException
+            throw new UncheckedIOException(e);
+        }
+        if (metricsEnabled){
+            NamedSqlMetrics.record(targetSql, System.nanoTime() - startTime, resSql, start);
+        }
+    }
+
+    /**
+     * 将具名参数写法的sql，转换成占位符写法，并将结果sql直接写入Appendable
+     *
+     * 关键字规则同namedPrmToPreparedPrm(String, Map, StringBuilder, List)。
+     * 解析结果按顺序流式写入resSql，写入后不会再回退修改，
+     * 因此resSql可以是Writer（如文件、socket输出流）或预先分配好的CharBuffer，
+     * 除list循环体原生内容外，不会在内存中持有完整的结果sql；
+     * 对于#={}拼接的大段字面量，若value为CharSequence则直接写入，不再转换为String。
+     *
+     * @param targetSql 含有具名参数sql
+     * @param paramMap 参数map
+     * @param resSql 写入转换结果sql
+     * @param resPrmList 存放sql对应的占位符结果集，可为null
+     * @return void
+     */
+    public static void namedPrmToPreparedPrm(String targetSql, Map<String,Object> paramMap, Appendable resSql, List<Object> resPrmList) throws IOException {
+        namedPrmToPreparedPrm(targetSql, paramMap, resSql, resPrmList, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 将具名参数写法的sql，转换成占位符写法，长度不小于parallelThreshold的list并行解析
+     *
+     * 关键字规则同namedPrmToPreparedPrm(String, Map, StringBuilder, List)，解析结果与其完全一致。
+     * 满足长度的list会被切分为若干段，每段在ForkJoinPool.commonPool()中各自解析到独立的sql及占位符结果集，
+     * 再按list顺序拼接到resSql与resPrmList中；
+     * 并行段内嵌套的list不再并行。
+     * 适用于list中有数十万项的大批量解析，list较小时切分与拼接的开销会大于并行的收益。
+     *
+     * @param targetSql 含有具名参数sql
+     * @param paramMap 参数map
+     * @param resSql 写入转换结果sql
+     * @param resPrmList 存放sql对应的占位符结果集，可为null
+     * @param parallelThreshold list长度达到该值时并行解析
+     * @return void
+     */
+    public static void namedPrmToPreparedPrm(String targetSql, Map<String,Object> paramMap, Appendable resSql, List<Object> resPrmList, int parallelThreshold) throws IOException {
         StringCharacterIterator targetSqlIterator = new StringCharacterIterator(targetSql);
         while (targetSqlIterator.current() != StringCharacterIterator.DONE){
-            checkSpecialAndAct(targetSqlIterator, paramMap, resSql, resPrmList);
+            checkSpecialAndAct(targetSqlIterator, paramMap, resSql, resPrmList, parallelThreshold);
 
+            // 解析完特殊关键字后可能已到末尾
+            if (targetSqlIterator.current() == StringCharacterIterator.DONE){
+                break;
+            }
             resSql.append(targetSqlIterator.current());
             targetSqlIterator.next();
         }
-
-        // 末尾EOF需去除
-        if (resSql.charAt(resSql.length()-1) == StringCharacterIterator.DONE){
-            resSql.deleteCharAt(resSql.length()-1);
-        }
     }
 
     // 无需生成占位符结果集时，可调用此方法
@@ -75,6 +153,254 @@ public class NamedSqlUtil {
         return resSql.toString();
     }
 
+    /**
+     * 分段解析：将指定list关键字的循环内容拆分到多条sql中，使每条sql的占位符数量不超过上限
+     *
+     * list之外的内容只解析一次，每段sql均为“list前内容 + 本段list循环内容 + list后内容”，
+     * 每段尽量容纳更多的list项，直至再加一项就会超过maxPlaceholderNum。
+     * 返回的迭代器每次next时才解析下一段，任一时刻只持有一段sql，
+     * 可用于规避驱动占位符上限（如MySQL/Doris的65535）；
+     * 此方法不限制sql长度，需同时限制max_allowed_packet时使用带maxSqlChars的重载。
+     *
+     * chunkListKey必须是paramMap中的key（不能是list内部嵌套的list），且在targetSql中至多出现一次；
+     * 分段时忽略该list的'+'补齐标记。
+     * 若targetSql中未解析到该list（如位于不成立的IF中）或list为空，则只返回一段，与namedPrmToPreparedPrm结果相同。
+     *
+     * @param targetSql 含有具名参数sql
+     * @param paramMap 参数map
+     * @param chunkListKey 需要拆分的list关键字
+     * @param maxPlaceholderNum 每段sql的占位符数量上限
+     * @return java.util.Iterator<NamedSqlUtil.PreparedSql> 各段sql及其占位符结果集，按list顺序排列
+     */
+    public static Iterator<PreparedSql> namedPrmToPreparedChunks(String targetSql, Map<String,Object> paramMap, String chunkListKey, int maxPlaceholderNum){
+        return namedPrmToPreparedChunks(targetSql, paramMap, chunkListKey, maxPlaceholderNum, Long.MAX_VALUE);
+    }
+
+    /**
+     * 分段解析，每段sql同时受占位符数量及sql长度限制
+     *
+     * 规则同namedPrmToPreparedChunks(String, Map, String, int)，
+     * 每段尽量容纳更多的list项，直至再加一项就会超过maxPlaceholderNum或maxSqlChars。
+     * sql长度按字符数计算，不含占位符绑定值的大小；按max_allowed_packet设置时，
+     * 需为多字节字符（UTF-8下中文为3字节）及绑定值预留余量。
+     *
+     * @param targetSql 含有具名参数sql
+     * @param paramMap 参数map
+     * @param chunkListKey 需要拆分的list关键字
+     * @param maxPlaceholderNum 每段sql的占位符数量上限
+     * @param maxSqlChars 每段sql的字符数上限
+     * @return java.util.Iterator<NamedSqlUtil.PreparedSql> 各段sql及其占位符结果集，按list顺序排列
+     */
+    public static Iterator<PreparedSql> namedPrmToPreparedChunks(String targetSql, Map<String,Object> paramMap, String chunkListKey, int maxPlaceholderNum, long maxSqlChars){
+        Object listObj = paramMap.get(chunkListKey);
+        if (listObj == null){
+            throw  new IllegalArgumentException("NamedSqlError : namedPrmToPreparedChunks error, chunkListKey not found");
+        }else if (! (listObj instanceof List)){
+            throw  new IllegalArgumentException("NamedSqlError : namedPrmToPreparedChunks error, chunkListKey value not is list, chunkListKey="+chunkListKey);
+        }
+
+        // 先以标记list解析一次，得到list外的内容，
+        // 该结果不会发送到数据库，因此直接调用Appendable版本，不计入NamedSqlMetrics
+        ChunkListMarker marker = new ChunkListMarker((List<Map<String, Object>>) listObj);
+        Map<String, Object> markerParamMap = new HashMap<>(paramMap);
+        markerParamMap.put(chunkListKey, marker);
+        StringBuilder outerSql = new StringBuilder();
+        List<Object> outerPrmList = new ArrayList<>();
+        try {
+            namedPrmToPreparedPrm(targetSql, markerParamMap, (Appendable) outerSql, outerPrmList);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IOException
+            throw new UncheckedIOException(e);
+        }
+
+        if (! marker.captured || marker.loopParamList.isEmpty()){
+            return Collections.singletonList(new PreparedSql(outerSql.toString(), outerPrmList)).iterator();
+        }
+
+        String preSql = outerSql.substring(0, marker.sqlIndex);
+        String postSql = outerSql.substring(marker.sqlIndex);
+        List<Object> prePrmList = outerPrmList.subList(0, marker.prmIndex);
+        List<Object> postPrmList = outerPrmList.subList(marker.prmIndex, outerPrmList.size());
+
+        return new Iterator<PreparedSql>() {
+            private int cursor = 0;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < marker.loopParamList.size();
+            }
+
+            @Override
+            public PreparedSql next() {
+                if (! hasNext()){
+                    throw new NoSuchElementException();
+                }
+
+                StringBuilder chunkSql = new StringBuilder(preSql);
+                List<Object> chunkPrmList = new ArrayList<>(prePrmList);
+                int elementNum = 0;
+                while (cursor < marker.loopParamList.size()){
+                    int sqlMark = chunkSql.length();
+                    int prmMark = chunkPrmList.size();
+
+                    if (elementNum > 0){
+                        chunkSql.append(marker.intervalStr);
+                    }
+                    try {
+                        analyseLoopBody(marker.loopStr, marker.loopParamList.get(cursor), chunkSql, chunkPrmList, Integer.MAX_VALUE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    chunkSql.append(' ');
+
+                    if (chunkPrmList.size() + postPrmList.size() > maxPlaceholderNum
+                            || chunkSql.length() + postSql.length() > maxSqlChars){
+                        if (elementNum == 0){
+                            throw  new IllegalArgumentException("NamedSqlError : namedPrmToPreparedChunks error, single list element exceeds maxPlaceholderNum or maxSqlChars, index="+cursor);
+                        }
+                        // 回退此项，留到下一段
+                        chunkSql.setLength(sqlMark);
+                        chunkPrmList.subList(prmMark, chunkPrmList.size()).clear();
+                        break;
+                    }
+
+                    elementNum++;
+                    cursor++;
+                }
+
+                chunkSql.append(postSql);
+                chunkPrmList.addAll(postPrmList);
+                return new PreparedSql(chunkSql.toString(), chunkPrmList);
+            }
+        };
+    }
+
+    /**
+     * 低分配解析模式
+     *
+     * targetSql首次使用时编译为NamedSqlTemplate并缓存（最多缓存MAX_CACHED_TEMPLATE_NUM个），
+     * 之后不再逐字符扫描sql、不再为key、间隔符、循环体构造StringBuilder，
+     * 结果写入当前线程复用的缓冲区，稳态下每次调用只分配返回的String及resPrmList中的参数。
+     * 适用于固定sql模板的高频调用；sql由调用方动态拼接、种类无限时请使用namedPrmToPreparedPrm。
+     *
+     * 关键字规则同namedPrmToPreparedPrm，解析结果与其一致，sql语法错误在首次编译时抛出。
+     *
+     * @param targetSql 含有具名参数sql
+     * @param paramMap 参数map
+     * @param resPrmList 存放sql对应的占位符结果集，可为null
+     * @return java.lang.String 转换结果sql
+     */
+    public static String namedPrmToPreparedPrmPooled(String targetSql, Map<String,Object> paramMap, List<Object> resPrmList){
+        NamedSqlTemplate template = TEMPLATE_CACHE.get(targetSql);
+        if (template == null){
+            template = NamedSqlTemplate.compile(targetSql);
+            if (TEMPLATE_CACHE.size() < MAX_CACHED_TEMPLATE_NUM){
+                TEMPLATE_CACHE.putIfAbsent(targetSql, template);
+            }
+        }
+        return template.renderPooled(paramMap, resPrmList);
+    }
+
+    /**
+     * 计算解析后sql的指纹，
+     * 解析后的sql中参数已替换为'?'，其文本即sql的形态，
+     * 连续空白视为一个空格、忽略首尾空白后，计算64位FNV-1a哈希，以16位十六进制字符串返回；
+     * 同一形态的sql指纹相同，且不随进程、版本变化，可用于统计sql形态数或跨服务对比
+     * @param preparedSql 解析后sql
+     * @return java.lang.String
+     */
+    public static String fingerprint(CharSequence preparedSql){
+        long hash = 0xcbf29ce484222325L;
+        boolean pendingSpace = false;
+        boolean started = false;
+        for (int i = 0; i < preparedSql.length(); i++) {
+            char c = preparedSql.charAt(i);
+            if (Character.isWhitespace(c)){
+                pendingSpace = started;
+                continue;
+            }
+            if (pendingSpace){
+                hash = (hash ^ ' ') * 0x100000001b3L;
+                pendingSpace = false;
+            }
+            hash = (hash ^ (c & 0xff)) * 0x100000001b3L;
+            hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
+            started = true;
+        }
+
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * 同一具名sql，按多组参数map分别解析，并将解析结果按“sql文本”分组
+     *
+     * 由于IF分支、list长度的不同，每个map解析出的sql可能不同，
+     * 相同sql文本的解析结果归为一组，组内每一项为该次解析的占位符结果集。
+     * 分组顺序即各sql文本首次出现的顺序。
+     *
+     * @param targetSql 含有具名参数sql
+     * @param paramMapList 参数map集合，每个map解析一次
+     * @return java.util.Map<java.lang.String,java.util.List<java.util.List<java.lang.Object>>> key：解析后sql，value：该sql对应的各组占位符结果集
+     */
+    public static Map<String, List<List<Object>>> groupByPreparedSql(String targetSql, List<Map<String,Object>> paramMapList){
+        Map<String, List<List<Object>>> resGroup = new LinkedHashMap<>();
+        StringBuilder resSql = new StringBuilder();
+        for (Map<String, Object> paramMap : paramMapList) {
+            List<Object> resPrmList = new ArrayList<>();
+            resSql.setLength(0);
+            namedPrmToPreparedPrm(targetSql, paramMap, resSql, resPrmList);
+            resGroup.computeIfAbsent(resSql.toString(), k -> new ArrayList<>()).add(resPrmList);
+        }
+        return resGroup;
+    }
+
+    /**
+     * 同一具名sql，按多组参数map批量执行
+     *
+     * 解析结果按sql文本分组（见groupByPreparedSql），
+     * 每组sql只创建一个PreparedStatement，组内所有占位符结果集addBatch后执行一次executeBatch，
+     * 即n组参数map只产生“sql文本种类数”次数据库交互。
+     * PreparedStatement由本方法创建及关闭，connection的提交与关闭由调用方负责。
+     *
+     * @param connection 数据库连接
+     * @param targetSql 含有具名参数sql
+     * @param paramMapList 参数map集合
+     * @return int[] 各参数map对应的执行结果（同executeBatch返回值），顺序与paramMapList一致
+     */
+    public static int[] executeNamedBatch(Connection connection, String targetSql, List<Map<String,Object>> paramMapList) throws SQLException {
+        // key：解析后sql，value：该sql对应的paramMapList下标
+        Map<String, List<Integer>> indexGroup = new LinkedHashMap<>();
+        List<List<Object>> prmListArr = new ArrayList<>(paramMapList.size());
+        StringBuilder resSql = new StringBuilder();
+        for (int i = 0; i < paramMapList.size(); i++) {
+            List<Object> resPrmList = new ArrayList<>();
+            resSql.setLength(0);
+            namedPrmToPreparedPrm(targetSql, paramMapList.get(i), resSql, resPrmList);
+            prmListArr.add(resPrmList);
+            indexGroup.computeIfAbsent(resSql.toString(), k -> new ArrayList<>()).add(i);
+        }
+
+        int[] res = new int[paramMapList.size()];
+        for (Map.Entry<String, List<Integer>> entry : indexGroup.entrySet()) {
+            try (PreparedStatement statement = connection.prepareStatement(entry.getKey())){
+                for (Integer index : entry.getValue()) {
+                    List<Object> resPrmList = prmListArr.get(index);
+                    for (int i = 0; i < resPrmList.size(); i++) {
+                        statement.setObject(i + 1, resPrmList.get(i));
+                    }
+                    statement.addBatch();
+                }
+
+                int[] batchRes = statement.executeBatch();
+                for (int i = 0; i < batchRes.length && i < entry.getValue().size(); i++) {
+                    res[entry.getValue().get(i)] = batchRes[i];
+                }
+            }
+        }
+        return res;
+    }
+
     /**
      * 检查当前字符是否是特殊字符（#{IF、#{、#:、#=）
      * 如果匹配成功，
@@ -86,31 +412,32 @@ public class NamedSqlUtil {
      *
      * 总之该方法完毕后总会指向“非特殊字符”的下标
      * @param targetSqlIterator
+     * @param parallelThreshold list长度达到该值时并行解析，Integer.MAX_VALUE即不并行
      * @author Chen768959
      * @return boolean
      */
-    private static boolean checkSpecialAndAct(StringCharacterIterator targetSqlIterator, Map<String,Object> paramMap, StringBuilder resSql, List<Object> resPrmList){
+    private static boolean checkSpecialAndAct(StringCharacterIterator targetSqlIterator, Map<String,Object> paramMap, Appendable resSql, List<Object> resPrmList, int parallelThreshold) throws IOException {
         if (checkTargetTagCur(targetSqlIterator, '#')){
             if (checkTargetTagCur(targetSqlIterator, '{')){
                 if (checkTargetTagCur(targetSqlIterator,'I','F','=')){ // 满足if条件
-                    analyseIfLogic(targetSqlIterator, paramMap, resSql, resPrmList);
+                    analyseIfLogic(targetSqlIterator, paramMap, resSql, resPrmList, parallelThreshold);
                 }else { // 满足list条件
-                    analyseListLogic(targetSqlIterator, paramMap, resSql, resPrmList);
+                    analyseListLogic(targetSqlIterator, paramMap, resSql, resPrmList, parallelThreshold);
                 }
-                checkSpecialAndAct(targetSqlIterator, paramMap, resSql, resPrmList);
+                checkSpecialAndAct(targetSqlIterator, paramMap, resSql, resPrmList, parallelThreshold);
                 return true;
             }
             if (checkTargetTagCur(targetSqlIterator, ':')){ // 满足占位符替换条件
                 if (checkTargetTagCur(targetSqlIterator, '{')){
                     analysePlaceholderLogic(targetSqlIterator, paramMap, resSql, resPrmList);
-                    checkSpecialAndAct(targetSqlIterator, paramMap, resSql, resPrmList);
+                    checkSpecialAndAct(targetSqlIterator, paramMap, resSql, resPrmList, parallelThreshold);
                     return true;
                 }
             }
             if (checkTargetTagCur(targetSqlIterator, '=')){ // 满足字符串替换条件
                 if (checkTargetTagCur(targetSqlIterator, '{')){
                     analyseReplaceLogic(targetSqlIterator, paramMap, resSql);
-                    checkSpecialAndAct(targetSqlIterator, paramMap, resSql, resPrmList);
+                    checkSpecialAndAct(targetSqlIterator, paramMap, resSql, resPrmList, parallelThreshold);
                     return true;
                 }
             }
@@ -151,7 +478,7 @@ public class NamedSqlUtil {
      * @author Chen768959
      * @return void
      */
-    private static void analyseReplaceLogic(StringCharacterIterator targetSqlIterator, Map<String, Object> paramMap, StringBuilder resSql) {
+    private static void analyseReplaceLogic(StringCharacterIterator targetSqlIterator, Map<String, Object> paramMap, Appendable resSql) throws IOException {
         String strKey = traveToSpecial(targetSqlIterator);
 
         Object resValue = paramMap.get(strKey);
@@ -159,7 +486,11 @@ public class NamedSqlUtil {
             throw  new IllegalArgumentException("NamedSqlError : analyseReplaceLogic error, strKey not found");
         }
 
-        resSql.append(resValue);
+        if (resValue instanceof CharSequence){
+            resSql.append((CharSequence) resValue);
+        }else {
+            resSql.append(String.valueOf(resValue));
+        }
     }
 
     /**
@@ -172,7 +503,7 @@ public class NamedSqlUtil {
      * @author Chen768959
      * @return void
      */
-    private static void analysePlaceholderLogic(StringCharacterIterator targetSqlIterator, Map<String, Object> paramMap, StringBuilder resSql, List<Object> resPrmList) {
+    private static void analysePlaceholderLogic(StringCharacterIterator targetSqlIterator, Map<String, Object> paramMap, Appendable resSql, List<Object> resPrmList) throws IOException {
         String strKey = traveToSpecial(targetSqlIterator);
 
         Object resValue = paramMap.get(strKey);
@@ -193,10 +524,11 @@ public class NamedSqlUtil {
      * @param paramMap
      * @param resSql
      * @param resPrmList
+     * @param parallelThreshold list长度达到该值时并行解析，Integer.MAX_VALUE即不并行
      * @author Chen768959
      * @return void
      */
-    private static void analyseIfLogic(StringCharacterIterator targetSqlIterator, Map<String, Object> paramMap, StringBuilder resSql, List<Object> resPrmList) {
+    private static void analyseIfLogic(StringCharacterIterator targetSqlIterator, Map<String, Object> paramMap, Appendable resSql, List<Object> resPrmList, int parallelThreshold) throws IOException {
         int loopNum = 0;
 
         // 判断if的strKey是否存在
@@ -229,9 +561,12 @@ public class NamedSqlUtil {
         char c = targetSqlIterator.current();
         while (c != StringCharacterIterator.DONE){
             // 判断当前符号是否为特殊关键字，是则需要解析
-            checkSpecialAndAct(targetSqlIterator, paramMap, resSql, resPrmList);
+            checkSpecialAndAct(targetSqlIterator, paramMap, resSql, resPrmList, parallelThreshold);
             // 重新赋值解析后位置
             c = targetSqlIterator.current();
+            if (c == StringCharacterIterator.DONE){
+                break;
+            }
             if (c == '{'){
                 loopNum++;
             }else if (c == '}'){
@@ -255,10 +590,11 @@ public class NamedSqlUtil {
      * @param paramMap
      * @param resSql
      * @param resPrmList
+     * @param parallelThreshold list长度达到该值时并行解析，Integer.MAX_VALUE即不并行
      * @author Chen768959
      * @return void
      */
-    private static void analyseListLogic(StringCharacterIterator targetSqlIterator, Map<String, Object> paramMap, StringBuilder resSql, List<Object> resPrmList) {
+    private static void analyseListLogic(StringCharacterIterator targetSqlIterator, Map<String, Object> paramMap, Appendable resSql, List<Object> resPrmList, int parallelThreshold) throws IOException {
         char c = targetSqlIterator.current();
         StringBuilder listKey = new StringBuilder(); // listKey
         StringBuilder intervalStr = new StringBuilder(); // 间隔符
@@ -270,12 +606,21 @@ public class NamedSqlUtil {
             c = targetSqlIterator.next();
         }
 
+        // listKey以'+'结尾，则循环次数按桶补齐
+        boolean bucketPad = listKey.length() > 0 && listKey.charAt(listKey.length() - 1) == '+';
+        if (bucketPad){
+            listKey.deleteCharAt(listKey.length() - 1);
+        }
+
         List<Map<String, Object>> loopParamList;
         Object listObj = paramMap.get(listKey.toString());
         if (listObj == null){
             throw  new IllegalArgumentException("NamedSqlError : analyseListLogic error, listKey not found");
         }else if (listObj instanceof List) {
             loopParamList = (List<Map<String, Object>>) paramMap.get(listKey.toString());
+            if (bucketPad && !(loopParamList instanceof ChunkListMarker)){
+                loopParamList = padToBucket(loopParamList);
+            }
         }else {
             throw  new IllegalArgumentException("NamedSqlError : analyseListLogic error, listKey value not is list, listKey="+listKey.toString());
         }
@@ -305,29 +650,140 @@ public class NamedSqlUtil {
         }
         // 循环体解析完毕
         String loopStr = loopStrBuilder.toString();
-        // 根据map数循环list
-        Optional.ofNullable(loopParamList).orElse(new ArrayList<>()).forEach(map -> {
-            // 每一次循环的参数集是当前map对象，作用的原始sql域则是此次的循环体，但是总的结果sql和结果填充list都没变
-            StringCharacterIterator loopIterator = new StringCharacterIterator(loopStr);
-            while (loopIterator.current() != StringCharacterIterator.DONE){
-                checkSpecialAndAct(loopIterator, map, resSql, resPrmList);
-
-                if (loopIterator.current() != StringCharacterIterator.DONE){
-                    resSql.append(loopIterator.current());
-                    loopIterator.next();
-                }
+
+        // 分段解析模式下，该list不在此处展开，仅记录循环体及其在结果中的位置
+        if (loopParamList instanceof ChunkListMarker){
+            // 分段解析时resSql固定为StringBuilder
+            ((ChunkListMarker) loopParamList).capture(intervalStr.toString(), loopStr, ((CharSequence) resSql).length(), resPrmList == null ? 0 : resPrmList.size());
+            return;
+        }
+
+        loopParamList = Optional.ofNullable(loopParamList).orElse(new ArrayList<>());
+        if (loopParamList.size() >= parallelThreshold){
+            analyseListParallel(loopStr, intervalStr.toString(), loopParamList, resSql, resPrmList);
+            return;
+        }
+
+        // 根据map数循环list，间隔符写在每一项之前（第一项除外），保证结果只追加不回退
+        boolean first = true;
+        for (Map<String, Object> map : loopParamList) {
+            if (! first){
+                resSql.append(intervalStr);
+            }
+            first = false;
+
+            analyseLoopBody(loopStr, map, resSql, resPrmList, parallelThreshold);
+            resSql.append(' ');
+        }
+    }
+
+    /**
+     * 并行解析list循环，
+     * 将list按顺序切分为若干段，每段独立解析后按原顺序拼接，结果与顺序解析一致
+     * @param loopStr 循环体原生内容
+     * @param intervalStr 间隔符
+     * @param loopParamList 循环参数集
+     * @param resSql
+     * @param resPrmList
+     * @return void
+     */
+    private static void analyseListParallel(String loopStr, String intervalStr, List<Map<String, Object>> loopParamList, Appendable resSql, List<Object> resPrmList) throws IOException {
+        int size = loopParamList.size();
+        int chunkNum = Math.max(1, Math.min(size, ForkJoinPool.getCommonPoolParallelism() * 4));
+        int chunkSize = (size + chunkNum - 1) / chunkNum;
+
+        List<PreparedSql> chunkList = IntStream.range(0, chunkNum).parallel()
+                .mapToObj(chunk -> {
+                    int from = chunk * chunkSize;
+                    int to = Math.min(from + chunkSize, size);
+                    StringBuilder chunkSql = new StringBuilder();
+                    List<Object> chunkPrmList = resPrmList == null ? null : new ArrayList<>();
+                    try {
+                        for (int i = from; i < to; i++) {
+                            if (i > from){
+                                chunkSql.append(intervalStr);
+                            }
+                            analyseLoopBody(loopStr, loopParamList.get(i), chunkSql, chunkPrmList, Integer.MAX_VALUE);
+                            chunkSql.append(' ');
+                        }
+                    } catch (IOException e) {
+                        // StringBuilder不会抛出IOException
+                        throw new UncheckedIOException(e);
+                    }
+                    return new PreparedSql(chunkSql.toString(), chunkPrmList);
+                })
+                .collect(Collectors.toList());
+
+        boolean first = true;
+        for (PreparedSql chunk : chunkList) {
+            if (chunk.getSql().isEmpty()){
+                continue;
             }
+            if (! first){
+                resSql.append(intervalStr);
+            }
+            first = false;
 
-            //结尾处加上间隔符
-            resSql.append(' ').append(intervalStr);
-        });
+            resSql.append(chunk.getSql());
+            if (resPrmList != null){
+                resPrmList.addAll(chunk.getPrmList());
+            }
+        }
+    }
 
-        // 清除末尾间隔符
-        if ( ! Optional.ofNullable(loopParamList).orElse(new ArrayList<>()).isEmpty()){
-            resSql.delete(resSql.length() - intervalStr.length(), resSql.length());
+    /**
+     * 以单个map为参数集，解析一次list循环体，
+     * 总的结果sql和结果填充list与外层共用
+     * @param loopStr 循环体原生内容
+     * @param map 此次循环的参数集
+     * @param resSql
+     * @param resPrmList
+     * @param parallelThreshold list长度达到该值时并行解析，Integer.MAX_VALUE即不并行
+     * @return void
+     */
+    private static void analyseLoopBody(String loopStr, Map<String, Object> map, Appendable resSql, List<Object> resPrmList, int parallelThreshold) throws IOException {
+        StringCharacterIterator loopIterator = new StringCharacterIterator(loopStr);
+        while (loopIterator.current() != StringCharacterIterator.DONE){
+            checkSpecialAndAct(loopIterator, map, resSql, resPrmList, parallelThreshold);
+
+            if (loopIterator.current() != StringCharacterIterator.DONE){
+                resSql.append(loopIterator.current());
+                loopIterator.next();
+            }
         }
     }
 
+    /**
+     * 将list长度补齐到“不小于其长度的最小2的幂”，补齐部分为list最后一项，
+     * 返回原list的只读视图，不复制元素
+     * @param loopParamList
+     * @return java.util.List<T>
+     */
+    static <T> List<T> padToBucket(List<T> loopParamList){
+        if (loopParamList == null || loopParamList.isEmpty()){
+            return loopParamList;
+        }
+
+        int size = loopParamList.size();
+        int highestBit = Integer.highestOneBit(size);
+        int bucketSize = highestBit == size ? size : highestBit << 1;
+        if (bucketSize == size || bucketSize <= 0){
+            return loopParamList;
+        }
+
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                return loopParamList.get(Math.min(index, size - 1));
+            }
+
+            @Override
+            public int size() {
+                return bucketSize;
+            }
+        };
+    }
+
     /**
      * 从当前下标开始遍历直到特殊字符，返回遍历内容
      * @param targetSqlIterator
@@ -352,4 +808,68 @@ public class NamedSqlUtil {
 
         return strKey.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * 解析后的sql及其占位符结果集
+     */
+    public static class PreparedSql {
+        private final String sql;
+        private final List<Object> prmList;
+
+        public PreparedSql(String sql, List<Object> prmList) {
+            this.sql = sql;
+            this.prmList = prmList;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getPrmList() {
+            return prmList;
+        }
+
+        // sql形态指纹，见NamedSqlUtil.fingerprint
+        public String getFingerprint() {
+            return fingerprint(sql);
+        }
+    }
+
+    /**
+     * 分段解析时替换原list的标记，
+     * 解析到该list时不展开循环，而是记录间隔符、循环体以及此时结果sql和结果填充list的位置
+     */
+    private static class ChunkListMarker extends AbstractList<Map<String, Object>> {
+        private final List<Map<String, Object>> loopParamList;
+        private boolean captured;
+        private String intervalStr;
+        private String loopStr;
+        private int sqlIndex;
+        private int prmIndex;
+
+        private ChunkListMarker(List<Map<String, Object>> loopParamList) {
+            this.loopParamList = Optional.ofNullable(loopParamList).orElse(new ArrayList<>());
+        }
+
+        private void capture(String intervalStr, String loopStr, int sqlIndex, int prmIndex){
+            if (captured){
+                throw  new IllegalArgumentException("NamedSqlError : namedPrmToPreparedChunks error, chunk list appears more than once");
+            }
+            this.captured = true;
+            this.intervalStr = intervalStr;
+            this.loopStr = loopStr;
+            this.sqlIndex = sqlIndex;
+            this.prmIndex = prmIndex;
+        }
+
+        @Override
+        public Map<String, Object> get(int index) {
+            return loopParamList.get(index);
+        }
+
+        @Override
+        public int size() {
+            return loopParamList.size();
+        }
+    }
+}